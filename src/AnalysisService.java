@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Answers questions about positions given as FEN (the legal moves, whether the side to move is in check,
+ * and whether the game is over by rule), caching the answers in an {@link LruCache}. Positions are keyed by
+ * their normalised FEN: the move counters are dropped (only whether the fifty-move rule applies is kept),
+ * and so is an en passant square no pawn can take on, so equivalent FENs share one entry. Every FEN is
+ * validated by {@link Position#fromFen}, cached or not. Safe to share between threads.
+ * <p>
+ * Each FEN is judged on its own, so there is no threefold repetition.
+ * <p>
+ * Usage: {@code AnalysisService <file.pgn | file.epd> [--cache n] [--rounds n]} analyses every position
+ * of the games (or every EPD/FEN line) as one batch per round and reports positions per second and the
+ * cache statistics.
+ */
+public final class AnalysisService {
+    // Rough heap cost of a cached entry besides its key characters and moves: the map entry, the key and
+    // analysis objects and the move array header
+    private static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * What is known about one position.
+     *
+     * @param key        Normalised FEN the analysis is cached under
+     * @param legalMoves Legal moves of the side to move
+     * @param inCheck    Whether the side to move is in check
+     * @param status     {@link GameStateTracker.Status#ONGOING} or why the game is over
+     */
+    public record Analysis(String key, int[] legalMoves, boolean inCheck, GameStateTracker.Status status) {
+        public List<String> legalMovesUci() {
+            List<String> moves = new ArrayList<>(legalMoves.length);
+            for (int move : legalMoves) {
+                moves.add(Moves.toUci(move));
+            }
+            return moves;
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder(64 + 8 * legalMoves.length);
+            json.append("{\"fen\":\"").append(key)
+                    .append("\",\"inCheck\":").append(inCheck)
+                    .append(",\"status\":\"").append(status)
+                    .append("\",\"legalMoves\":[");
+            for (int i = 0; i < legalMoves.length; i++) {
+                json.append(i == 0 ? "\"" : ",\"").append(Moves.toUci(legalMoves[i])).append('"');
+            }
+            return json.append("]}").toString();
+        }
+
+        int estimatedBytes() {
+            return ENTRY_OVERHEAD + 2 * key.length() + 4 * legalMoves.length;
+        }
+    }
+
+    private final LruCache<String, Analysis> cache;
+
+    /**
+     * @param capacity Most positions kept in the cache
+     */
+    public AnalysisService(int capacity) {
+        this.cache = new LruCache<>(capacity, Analysis::estimatedBytes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: AnalysisService <file.pgn | file.epd> [--cache n] [--rounds n]");
+            return;
+        }
+        int capacity = 100_000;
+        int rounds = 3;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--cache" -> capacity = Integer.parseInt(args[i + 1]);
+                case "--rounds" -> rounds = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Path path = Path.of(args[0]);
+        List<String> fens = path.toString().endsWith(".pgn") ? gamePositions(path) : MatchRunner.readBook(path);
+
+        AnalysisService service = new AnalysisService(capacity);
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            List<Analysis> results = service.analyzeAll(fens);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long over = results.stream().filter(analysis -> analysis != null && analysis.status().isGameOver()).count();
+            System.out.printf("Round %d: %d positions in %.3f s, %.0f positions/s, %d games over%n",
+                    round, fens.size(), seconds, fens.size() / seconds, over);
+            System.out.println("  Cache: " + service.cache());
+        }
+    }
+
+    /**
+     * Analyses {@code fen}, from the cache if an equivalent position was seen recently.
+     *
+     * @throws IllegalArgumentException if {@code fen} is not a valid position
+     */
+    public Analysis analyze(String fen) {
+        Position position = Position.fromFen(fen);
+        return cache.computeIfAbsent(key(position), key -> analyze(key, position));
+    }
+
+    /**
+     * Analyses many positions at once, spread over the common fork-join pool. The results are in the
+     * order of {@code fens}, with null for any that is not a valid position.
+     */
+    public List<Analysis> analyzeAll(List<String> fens) {
+        Analysis[] results = new Analysis[fens.size()];
+        IntStream.range(0, results.length).parallel().forEach(i -> {
+            try {
+                results[i] = analyze(fens.get(i));
+            } catch (IllegalArgumentException e) {
+                results[i] = null;
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    public LruCache<String, Analysis> cache() {
+        return cache;
+    }
+
+    /**
+     * The first four fields of the position's FEN, plus a {@code 100} halfmove clock when the fifty-move
+     * rule has been reached. {@link Position#fromFen} has already put the castling rights in the usual order
+     * and dropped an en passant square no pawn can take on.
+     */
+    static String key(Position position) {
+        String fen = position.toFen();
+        String key = fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1));
+        return position.halfmoveClock() >= 100 ? key + " 100" : key;
+    }
+
+    private static Analysis analyze(String key, Position position) {
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        int[] moves = new int[legal.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = legal.get(i);
+        }
+        GameStateTracker tracker = new GameStateTracker();
+        tracker.reset(position);
+        GameStateTracker.Status status = tracker.status(position, moves.length > 0);
+        return new Analysis(key, moves, position.isInCheck(position.sideToMove()), status);
+    }
+
+    // Every position reached in the games, the start positions included
+    private static List<String> gamePositions(Path path) throws IOException {
+        List<String> fens = new ArrayList<>();
+        try (PgnReader reader = PgnReader.open(path)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                try {
+                    Position position = game.startPosition();
+                    fens.add(position.toFen());
+                    for (int move : game.decodeMoves()) {
+                        position.makeMove(move);
+                        fens.add(position.toFen());
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping a game: " + e.getMessage());
+                }
+            }
+        }
+        return fens;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Precomputed attack tables. Squares are numbered a1 = 0, b1 = 1, ... h8 = 63.
+ * <p>
+ * Sliding attacks use magic bitboards: the blockers on a piece's rays are multiplied by a per-square
+ * magic number so the top bits form a perfect-hash index into a table of precomputed attack sets.
+ * The magics are found at class load with a fixed seed, which takes a few milliseconds.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    /**
+     * @param mask    Squares on the piece's rays whose occupancy matters (board edges excluded)
+     * @param attacks Attack sets indexed by {@code ((occupied & mask) * magic) >>> shift}
+     */
+    private record Magic(long mask, long magic, int shift, long[] attacks) {
+        int index(long occupied) {
+            return (int) (((occupied & mask) * magic) >>> shift);
+        }
+    }
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, knightSteps);
+            KING[square] = steps(square, kingSteps);
+            PAWN[Position.WHITE][square] = steps(square, new int[][]{{-1, 1}, {1, 1}});
+            PAWN[Position.BLACK][square] = steps(square, new int[][]{{-1, -1}, {1, -1}});
+        }
+
+        long[] seed = {0x2545F4914F6CDD1DL};
+        for (int square = 0; square < 64; square++) {
+            BISHOP_MAGICS[square] = findMagic(square, true, seed);
+            ROOK_MAGICS[square] = findMagic(square, false, seed);
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                for (boolean isBishop : new boolean[]{true, false}) {
+                    if ((slidingAttacks(a, 0L, isBishop) & (1L << b)) != 0) {
+                        BETWEEN[a][b] = slidingAttacks(a, 1L << b, isBishop) & slidingAttacks(b, 1L << a, isBishop);
+                        LINE[a][b] = (slidingAttacks(a, 0L, isBishop) & slidingAttacks(b, 0L, isBishop)) | (1L << a) | (1L << b);
+                    }
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Squares a pawn of the given colour on {@code square} attacks (captures only, no pushes).
+     */
+    public static long pawn(int colour, int square) {
+        return PAWN[colour][square];
+    }
+
+    public static long bishop(int square, long occupied) {
+        Magic magic = BISHOP_MAGICS[square];
+        return magic.attacks()[magic.index(occupied)];
+    }
+
+    public static long rook(int square, long occupied) {
+        Magic magic = ROOK_MAGICS[square];
+        return magic.attacks()[magic.index(occupied)];
+    }
+
+    public static long queen(int square, long occupied) {
+        return bishop(square, occupied) | rook(square, occupied);
+    }
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal, or 0 if they do not share one.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * The whole rank, file or diagonal through both squares, or 0 if they do not share one.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static Magic findMagic(int square, boolean isBishop, long[] seed) {
+        long mask = slidingAttacks(square, 0L, isBishop) & ~edges(square);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] reference = new long[size];
+
+        // Enumerate every subset of the mask (Carry-Rippler trick) with its true attack set
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            reference[i] = slidingAttacks(square, subset, isBishop);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] attacks = new long[size];
+        int[] epoch = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            long magic = random(seed) & random(seed) & random(seed); // Sparse candidates work best
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            Magic candidate = new Magic(mask, magic, 64 - bits, attacks);
+            boolean collides = false;
+            for (int i = 0; i < size && !collides; i++) {
+                int index = candidate.index(occupancies[i]);
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    attacks[index] = reference[i];
+                } else if (attacks[index] != reference[i]) {
+                    collides = true;
+                }
+            }
+            if (!collides) {
+                return candidate;
+            }
+        }
+    }
+
+    // Board edges never block a ray further, unless the piece itself stands on that edge
+    private static long edges(int square) {
+        long ranks = (0xFFL | 0xFF00000000000000L) & ~(0xFFL << (8 * (square >>> 3)));
+        long files = (0x0101010101010101L | 0x8080808080808080L) & ~(0x0101010101010101L << (square & 7));
+        return ranks | files;
+    }
+
+    private static long random(long[] seed) {
+        // xorshift64*
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    private static long slidingAttacks(int square, long occupied, boolean isBishop) {
+        return isBishop
+                ? ray(square, occupied, 1, 1) | ray(square, occupied, 1, -1) | ray(square, occupied, -1, 1) | ray(square, occupied, -1, -1)
+                : ray(square, occupied, 1, 0) | ray(square, occupied, -1, 0) | ray(square, occupied, 0, 1) | ray(square, occupied, 0, -1);
+    }
+
+    private static long ray(int square, long occupied, int fileStep, int rankStep) {
+        long attacks = 0L;
+        int file = (square & 7) + fileStep;
+        int rank = (square >>> 3) + rankStep;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            long bit = 1L << (rank * 8 + file);
+            attacks |= bit;
+            if ((occupied & bit) != 0) {
+                break; // Blocked by the first piece in the way
+            }
+            file += fileStep;
+            rank += rankStep;
+        }
+        return attacks;
+    }
+
+    private static long steps(int square, int[][] offsets) {
+        long attacks = 0L;
+        int file = square & 7;
+        int rank = square >>> 3;
+        for (int[] offset : offsets) {
+            int f = file + offset[0];
+            int r = rank + offset[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                attacks |= 1L << (r * 8 + f);
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro-benchmarks for the rule hot paths: {@link Piece#isValidMove} for every piece type, attack and
+ * check queries, move generation, and evaluation by piece-square tables against the incrementally updated
+ * {@link NnueEvaluator}. Each benchmark is warmed up, then timed over several fixed-length
+ * iterations, and reported as calls per second with the spread between iterations.
+ * <p>
+ * Usage: {@code Benchmarks [name filter]}
+ */
+public final class Benchmarks {
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    // Results are folded in here so the JIT cannot discard the benchmarked work
+    private static long sink;
+
+    interface Operation {
+        long run();
+    }
+
+    /**
+     * @param callsPerRun How many calls of the measured method one {@link Operation#run} makes
+     */
+    record Benchmark(String name, int callsPerRun, Operation operation) {
+    }
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        for (Benchmark benchmark : benchmarks(Position.fromFen(KIWIPETE))) {
+            if (benchmark.name().contains(filter)) {
+                measure(benchmark);
+            }
+        }
+        if (sink == 42) {
+            System.out.println(); // Never true in practice, but keeps the sink alive
+        }
+    }
+
+    static List<Benchmark> benchmarks(Position position) {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            benchmarks.add(isValidMoveBenchmark(position, type));
+        }
+        benchmarks.add(new Benchmark("isSquareAttacked", 64, () -> {
+            long attacked = 0;
+            for (int square = 0; square < 64; square++) {
+                attacked += position.isSquareAttacked(square, Position.BLACK) ? 1 : 0;
+            }
+            return attacked;
+        }));
+        benchmarks.add(new Benchmark("attackersTo", 64, () -> {
+            long attackers = 0;
+            for (int square = 0; square < 64; square++) {
+                attackers |= position.attackersTo(square, position.occupied());
+            }
+            return attackers;
+        }));
+        benchmarks.add(new Benchmark("isInCheck", 2, () ->
+                (position.isInCheck(Position.WHITE) ? 1 : 0) + (position.isInCheck(Position.BLACK) ? 1 : 0)));
+        MoveList moves = new MoveList();
+        benchmarks.add(new Benchmark("generatePseudoLegal", 1, () -> {
+            MoveGenerator.generatePseudoLegal(position, moves);
+            return moves.size();
+        }));
+        benchmarks.add(new Benchmark("generateLegal", 1, () -> {
+            MoveGenerator.generateLegal(position, moves);
+            return moves.size();
+        }));
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        benchmarks.add(new Benchmark("makeMove+unmakeMove", legal.size(), () -> {
+            long captured = 0;
+            for (int i = 0; i < legal.size(); i++) {
+                captured += position.makeMove(legal.get(i));
+                position.unmakeMove();
+            }
+            return captured;
+        }));
+        benchmarks.add(new Benchmark("evaluate/tables", 1, () -> Evaluation.evaluate(position)));
+        // Evaluating every child is what the search does at the horizon
+        benchmarks.add(new Benchmark("move+evaluate/tables", legal.size(), () -> {
+            long total = 0;
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                total += Evaluation.evaluate(position);
+                position.unmakeMove();
+            }
+            return total;
+        }));
+        // The scalar loops next to whatever the JVM picked, so the Vector API path has something to beat
+        List<NnueKernel> kernels = new ArrayList<>(List.of(NnueKernel.SCALAR));
+        NnueKernel best = NnueKernel.best();
+        if (best != NnueKernel.SCALAR) {
+            kernels.add(best);
+        }
+        NnueNetwork network = NnueNetwork.fromEvaluation();
+        for (NnueKernel kernel : kernels) {
+            NnueEvaluator nnue = new NnueEvaluator(network, 1, kernel);
+            nnue.refresh(position);
+            benchmarks.add(new Benchmark("evaluate/nnue refresh " + kernel.name(), 1, () -> {
+                nnue.refresh(position);
+                return nnue.evaluate(position);
+            }));
+            benchmarks.add(new Benchmark("move+evaluate/nnue " + kernel.name(), legal.size(), () -> {
+                long total = 0;
+                for (int i = 0; i < legal.size(); i++) {
+                    nnue.makeMove(position, legal.get(i));
+                    total += nnue.evaluate(position);
+                    nnue.unmakeMove(position);
+                }
+                return total;
+            }));
+        }
+        return benchmarks;
+    }
+
+    // Probes every square pair for every piece of the given type, both colours
+    private static Benchmark isValidMoveBenchmark(Position position, int type) {
+        List<int[]> probes = new ArrayList<>();
+        for (int from = 0; from < 64; from++) {
+            int code = position.pieceAt(from);
+            if (code != Position.EMPTY && Position.typeOf(code) == type) {
+                for (int to = 0; to < 64; to++) {
+                    probes.add(new int[]{code, from, to});
+                }
+            }
+        }
+        int[][] table = probes.toArray(new int[0][]);
+        String name = "isValidMove/" + Piece.of(Position.code(Position.WHITE, type)).getClass().getSimpleName();
+        return new Benchmark(name, table.length, () -> {
+            long valid = 0;
+            for (int[] probe : table) {
+                valid += Piece.of(probe[0]).isValidMove(position, probe[1], probe[2]) ? 1 : 0;
+            }
+            return valid;
+        });
+    }
+
+    private static void measure(Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(benchmark);
+        }
+        double[] rates = new double[MEASURED_ITERATIONS];
+        double total = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            rates[i] = runIteration(benchmark);
+            total += rates[i];
+        }
+        double mean = total / MEASURED_ITERATIONS;
+        double spread = 0;
+        for (double rate : rates) {
+            spread = Math.max(spread, Math.abs(rate - mean));
+        }
+        System.out.printf("%-38s %,16.0f calls/s  (+/- %.1f%%)%n", benchmark.name(), mean, 100 * spread / mean);
+    }
+
+    private static double runIteration(Benchmark benchmark) {
+        Operation operation = benchmark.operation();
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 256; i++) {
+                sink += operation.run();
+            }
+            runs += 256;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (double) runs * benchmark.callsPerRun() * 1_000_000_000L / elapsed;
+    }
+}
@@ -0,0 +1,203 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * The board as a single painted component: squares, pieces and move highlights are drawn directly from
+ * the latest {@link GameSnapshot} and the cached piece images, and only the squares that changed are
+ * repainted.
+ * <p>
+ * Squares are addressed the same way as the rest of the GUI, {@code x} being the row from the top and
+ * {@code y} the column. A press is reported as a click on that square; dragging the selected piece and
+ * releasing it on another square is reported as a second click on the drop square.
+ */
+public class BoardView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color LIGHT = Color.WHITE;
+    private static final Color DARK = new Color(0, 49, 255, 255);
+    private static final Color HIGHLIGHT = Color.GREEN;
+    private static final int HIGHLIGHT_WIDTH = 3;
+    private static final LatencyHistogram PAINT_TIME = Metrics.histogram("board.paint");
+
+    /**
+     * Receives clicks (and drops) on board squares.
+     */
+    public interface SquareListener {
+        void squareClicked(int x, int y);
+    }
+
+    private final PieceIcons icons;
+    private GameSnapshot snapshot;
+    private SquareListener listener = (x, y) -> {
+    };
+    private long highlighted;
+    private int selectedSquare = Position.NO_SQUARE;
+
+    // Drag state: the square the dragged piece came from and its last drawn bounds
+    private int dragSquare = Position.NO_SQUARE;
+    private final Rectangle dragBounds = new Rectangle();
+
+    public BoardView(PieceIcons icons) {
+        this.icons = icons;
+        setOpaque(true);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int square = squareAt(e.getX(), e.getY());
+                if (square == Position.NO_SQUARE || !SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+                listener.squareClicked(Position.row(square), Position.column(square));
+                if (square == selectedSquare && snapshot != null && snapshot.pieceAt(square) != Position.EMPTY) {
+                    dragSquare = square;
+                    dragBounds.setBounds(squareBounds(square));
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragSquare == Position.NO_SQUARE) {
+                    return;
+                }
+                Rectangle previous = new Rectangle(dragBounds);
+                Rectangle home = squareBounds(dragSquare);
+                dragBounds.setBounds(e.getX() - home.width / 2, e.getY() - home.height / 2, home.width, home.height);
+                repaint(previous.union(dragBounds).union(home));
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (dragSquare == Position.NO_SQUARE) {
+                    return;
+                }
+                int from = dragSquare;
+                dragSquare = Position.NO_SQUARE;
+                repaint(dragBounds.union(squareBounds(from)));
+                int to = squareAt(e.getX(), e.getY());
+                if (to != Position.NO_SQUARE && to != from) {
+                    listener.squareClicked(Position.row(to), Position.column(to));
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    public void setSquareListener(SquareListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Shows a new position, repainting only the squares whose piece changed.
+     */
+    public void setSnapshot(GameSnapshot next) {
+        GameSnapshot previous = snapshot;
+        snapshot = next;
+        if (previous == null) {
+            repaint();
+            return;
+        }
+        long changed = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (previous.pieceAt(square) != next.pieceAt(square)) {
+                changed |= 1L << square;
+            }
+        }
+        repaintSquares(changed);
+    }
+
+    /**
+     * Outlines the given squares, repainting only those whose highlight changed.
+     */
+    public void setHighlights(long squares) {
+        long changed = highlighted ^ squares;
+        highlighted = squares;
+        repaintSquares(changed);
+    }
+
+    /**
+     * Marks the square the player has picked up a piece from, or {@link Position#NO_SQUARE}.
+     */
+    public void setSelectedSquare(int square) {
+        selectedSquare = square;
+    }
+
+    private void repaintSquares(long squares) {
+        for (long bits = squares; bits != 0; bits &= bits - 1) {
+            repaint(squareBounds(Long.numberOfTrailingZeros(bits)));
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        ChessEvents.BoardPaint event = new ChessEvents.BoardPaint();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int painted = 0;
+        icons.fitTo(getWidth() / 8, getHeight() / 8);
+        Rectangle clip = g.getClipBounds();
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                int square = Position.square(x, y);
+                Rectangle bounds = squareBounds(square);
+                if (clip != null && !clip.intersects(bounds)) {
+                    continue;
+                }
+                painted++;
+                g.setColor((x + y) % 2 == 0 ? LIGHT : DARK);
+                g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+                if ((highlighted & (1L << square)) != 0) {
+                    g.setColor(HIGHLIGHT);
+                    for (int i = 0; i < HIGHLIGHT_WIDTH; i++) {
+                        g.drawRect(bounds.x + i, bounds.y + i, bounds.width - 1 - 2 * i, bounds.height - 1 - 2 * i);
+                    }
+                }
+                if (square != dragSquare) {
+                    drawPiece(g, square, bounds);
+                }
+            }
+        }
+        if (dragSquare != Position.NO_SQUARE) {
+            drawPiece(g, dragSquare, dragBounds);
+        }
+        if (Metrics.ENABLED) {
+            PAINT_TIME.recordNanos(System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.squares = painted;
+            event.commit();
+        }
+    }
+
+    private void drawPiece(Graphics g, int square, Rectangle bounds) {
+        if (snapshot == null) {
+            return;
+        }
+        BufferedImage image = icons.get(Piece.of(snapshot.pieceAt(square)));
+        if (image != null) {
+            g.drawImage(image, bounds.x + (bounds.width - image.getWidth()) / 2,
+                    bounds.y + (bounds.height - image.getHeight()) / 2, null);
+        }
+    }
+
+    // Square edges are spread over the whole component, like the grid layout the buttons used
+    private Rectangle squareBounds(int square) {
+        int x = Position.row(square);
+        int y = Position.column(square);
+        int left = y * getWidth() / 8;
+        int top = x * getHeight() / 8;
+        return new Rectangle(left, top, (y + 1) * getWidth() / 8 - left, (x + 1) * getHeight() / 8 - top);
+    }
+
+    private int squareAt(int px, int py) {
+        if (px < 0 || py < 0 || px >= getWidth() || py >= getHeight()) {
+            return Position.NO_SQUARE;
+        }
+        return Position.square(py * 8 / getHeight(), px * 8 / getWidth());
+    }
+}
@@ -1,39 +1,44 @@
-import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.io.IOException;
-import java.net.URL;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class ChessBoard {
-    private final Piece[][] pieces = new Piece[8][8];
+    private static final LatencyHistogram VALIDATION_TIME = Metrics.histogram("gui.moveValidation");
+
     private final JFrame frame;
-    private final JButton[][] buttons;
-    final CastlingState castlingState = new CastlingState(false, false, false, false, false, false);
-    private Move lastMove = null;
+    private final BoardView boardView;
+    private final JLabel bookLabel = new JLabel(" ");
+    private final SoundService sounds = new SoundService();
+    private final GameController controller;
+    private GameSnapshot snapshot; // Latest state published by the controller
     private Piece selectedPiece = null;
     private int selectedX = -1;
     private int selectedY = -1;
-
+    private boolean computerThinking = false;
 
     public ChessBoard() {
         frame = new JFrame("Chess");
-        buttons = new JButton[8][8];
-        frame.setLayout(new GridLayout(8, 8));
+        frame.setJMenuBar(createMenuBar());
 
-        initializePieces();
+        boardView = new BoardView(new PieceIcons());
+        boardView.setSquareListener(new SquareClickListener());
+        frame.add(boardView);
+        frame.add(bookLabel, BorderLayout.SOUTH);
 
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                JButton button = createButton(i, j);
-                buttons[i][j] = button;
-                frame.add(button);
-            }
-        }
+        // Rules run on the controller's worker thread; results come back as snapshots on this thread
+        controller = new GameController(this::showSnapshot, this::showError);
 
         frame.setSize(600, 600);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing the window shuts the controller and sounds down; the program ends once their threads have
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                controller.close();
+                sounds.close();
+            }
+        });
         frame.setVisible(true);
     }
 
@@ -41,130 +46,211 @@ public class ChessBoard {
         new ChessBoard();
     }
 
-    private JButton createButton(int i, int j) {
-        JButton button = new JButton();
-        setIcon(button, pieces[i][j]);
-        button.addActionListener(new ButtonClickListener(i, j));
-        button.setOpaque(true);
-        button.setBorderPainted(true);
-        Color bgColor = ((i + j) % 2 == 0) ? Color.WHITE : new Color(0, 49, 255, 255);
-        button.setBackground(bgColor);
-        button.setBorder(BorderFactory.createLineBorder(bgColor, 3));
-        return button;
+    private JMenuBar createMenuBar() {
+        JMenuBar menuBar = new JMenuBar();
+        JMenu gameMenu = new JMenu("Game");
+        JCheckBoxMenuItem computerItem = new JCheckBoxMenuItem("Play vs. Computer (Black)");
+        computerItem.addActionListener(e -> controller.setComputerPlaysBlack(computerItem.isSelected()));
+        gameMenu.add(computerItem);
+        gameMenu.addSeparator();
+
+        JMenuItem loadFenItem = new JMenuItem("Load FEN...");
+        loadFenItem.addActionListener(e -> loadFen());
+        gameMenu.add(loadFenItem);
+        JMenuItem loadPgnItem = new JMenuItem("Load PGN...");
+        loadPgnItem.addActionListener(e -> loadPgn());
+        gameMenu.add(loadPgnItem);
+        JMenuItem savePgnItem = new JMenuItem("Save PGN...");
+        savePgnItem.addActionListener(e -> savePgn());
+        gameMenu.add(savePgnItem);
+        gameMenu.addSeparator();
+
+        JMenuItem openBookItem = new JMenuItem("Open Opening Book...");
+        openBookItem.addActionListener(e -> openBook());
+        gameMenu.add(openBookItem);
+        JMenuItem metricsItem = new JMenuItem("Show Metrics");
+        metricsItem.addActionListener(e -> showMetrics());
+        gameMenu.add(metricsItem);
+        menuBar.add(gameMenu);
+        return menuBar;
     }
 
-    private void initializePieces() {
-        pieces[0] = new Piece[]{new Rook(false), new Knight(false), new Bishop(false), new Queen(false), new King(false), new Bishop(false), new Knight(false), new Rook(false)};
-        pieces[1] = new Piece[]{new Pawn(false), new Pawn(false), new Pawn(false), new Pawn(false), new Pawn(false), new Pawn(false), new Pawn(false), new Pawn(false)};
-        pieces[6] = new Piece[]{new Pawn(true), new Pawn(true), new Pawn(true), new Pawn(true), new Pawn(true), new Pawn(true), new Pawn(true), new Pawn(true)};
-        pieces[7] = new Piece[]{new Rook(true), new Knight(true), new Bishop(true), new Queen(true), new King(true), new Bishop(true), new Knight(true), new Rook(true)};
+    private void loadFen() {
+        String fen = JOptionPane.showInputDialog(frame, "FEN:", snapshot != null ? snapshot.fen() : "");
+        if (fen != null) {
+            controller.loadFen(fen.trim());
+        }
     }
 
-    private void setIcon(JButton button, Piece piece) {
-        if (piece != null) {
-            URL imgUrl = getClass().getClassLoader().getResource(piece.getImageName());
-            if (imgUrl != null) {
-                ImageIcon icon = new ImageIcon(imgUrl);
-                Image image = icon.getImage().getScaledInstance(50, 65, Image.SCALE_SMOOTH);
-                button.setIcon(new ImageIcon(image));
-            } else {
-                System.err.println("Couldn't find file: " + piece.getImageName());
-            }
-        } else {
-            button.setIcon(null);
+    private void loadPgn() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            controller.loadPgn(chooser.getSelectedFile().toPath()); // Only the first game of the file is loaded
         }
     }
 
-    private boolean isCheckmate(boolean isWhite) {
-        if (!isKingInCheck(isWhite)) {
-            return false; // Player is not in check, so cannot be in checkmate
+    private void savePgn() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            controller.savePgn(chooser.getSelectedFile().toPath());
         }
+    }
 
-        // Check if there are any legal moves that would get the King out of check
-        Piece[][] tempPieces = new Piece[8][8];
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece piece = pieces[i][j];
-                if (piece != null && piece.isWhite() == isWhite) {
-                    for (int x = 0; x < 8; x++) {
-                        for (int y = 0; y < 8; y++) {
-                            if (piece.isValidMove(i, j, x, y, pieces, this)) {
-                                // Simulate the move
-                                System.arraycopy(pieces[i], 0, tempPieces[i], 0, 8);
-                                tempPieces[x][y] = tempPieces[i][j];
-                                tempPieces[i][j] = null;
-
-                                // Check if the King's square is still attacked after the move
-                                if (isSquareNotAttacked(x, y, isWhite)) {
-                                    return false; // There is a legal move that gets the King out of check
-                                }
-
-                                // Undo the simulated move
-                                System.arraycopy(tempPieces[i], 0, pieces[i], 0, 8);
-                            }
-                        }
-                    }
-                }
-            }
+    private void openBook() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            controller.openBook(chooser.getSelectedFile().toPath());
         }
+    }
 
-        return true; // No legal moves that get the King out of check, so player is in checkmate
+    private void showMetrics() {
+        JTextArea text = new JTextArea(Metrics.report(), 12, 70);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(frame, new JScrollPane(text), "Metrics", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private boolean isKingInCheck(boolean isWhite) {
-        // Find the King's position
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece piece = pieces[i][j];
-                if (piece instanceof King && piece.isWhite() == isWhite) {
-                    // Check if the King's square is attacked
-                    return !isSquareNotAttacked(i, j, isWhite);
-                }
-            }
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(frame, message, "Chess", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void showSnapshot(GameSnapshot next) {
+        GameSnapshot previous = snapshot;
+        snapshot = next;
+        computerThinking = next.computerThinking();
+        boardView.setSnapshot(next);
+        showBookMoves(next);
+        if (previous == null || previous.moves() == next.moves()) {
+            return; // Nothing was played, e.g. the computer just started thinking
+        }
+        if (next.moves().length == previous.moves().length + 1 && next.startFen().equals(previous.startFen())) {
+            announceMove(next.lastMove(), previous);
+        } else {
+            // A different game was loaded
+            selectedPiece = null;
+            selectedX = -1;
+            selectedY = -1;
+            boardView.setSelectedSquare(Position.NO_SQUARE);
+            boardView.setHighlights(0L);
         }
-        return false; // King not found, so it's not in check
     }
 
-    private boolean isSquareNotAttacked(int x, int y, boolean isWhite) {
-        // Iterate through the board to check if any of the opponent's pieces can attack the given square
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece piece = pieces[i][j];
-                if (piece != null && piece.isWhite() != isWhite && piece.isValidMove(i, j, x, y, pieces, this)) {
-                    return false; // The square is attacked
-                }
-            }
+    private void showBookMoves(GameSnapshot next) {
+        if (next.bookMoves().isEmpty()) {
+            bookLabel.setText(" ");
+            return;
         }
-        return true; // The square is not attacked
+        long total = 0;
+        for (PolyglotBook.BookMove move : next.bookMoves()) {
+            total += move.weight();
+        }
+        Position position = next.position();
+        StringBuilder text = new StringBuilder("Book:");
+        for (PolyglotBook.BookMove move : next.bookMoves()) {
+            text.append(' ').append(San.format(position, move.move()))
+                    .append(String.format(" (%.0f%%)", 100.0 * move.weight() / Math.max(1, total)));
+        }
+        bookLabel.setText(text.toString());
     }
 
-    Move getLastMove() {
-        return lastMove;
+    private void announceMove(int move, GameSnapshot before) {
+        Piece piece = Piece.of(before.pieceAt(Moves.from(move)));
+
+        // Check if the move is a castling move
+        // if the King moved two squares, the rook moved as well
+        if (Moves.isCastle(move)) {
+            Log.debug("Castling. Swap the rook too.");
+        }
+
+        // Check if the move is an en passant move
+        // if the Pawn moved diagonally onto the en passant square, then the Pawn beside it was captured
+        if (Moves.isEnPassant(move)) {
+            Log.debug("Captured en passant. Remove the captured Pawn.");
+        }
+
+        playMoveSound(move);
+
+        // Check if opposing King is in check / checkmate
+        if (isKingInCheck(!piece.isWhite())) {
+            Log.debug("Opposing King is in check.");
+        }
+        // Checkmate, stalemate or a draw by rule
+        if (snapshot.status().isGameOver()) {
+            Log.info(snapshot.status().description());
+            showGameOverDialog(snapshot.status().description());
+        }
     }
 
+    private void playMoveSound(int move) {
+        if (snapshot.status().isGameOver()) {
+            sounds.play(SoundService.Sound.GAME_END);
+        } else if (snapshot.inCheck()) {
+            sounds.play(SoundService.Sound.CHECK);
+        } else if (Moves.isCapture(move)) {
+            sounds.play(SoundService.Sound.CAPTURE);
+        } else {
+            sounds.play(SoundService.Sound.MOVE);
+        }
+    }
 
-    public record Move(Piece piece, int fromX, int fromY, int toX, int toY) {
+    private void showGameOverDialog(String message) {
+        JDialog gameOverDialog = new JDialog(frame, "Game Over", true);
+        gameOverDialog.setLayout(new BorderLayout());
+
+        // Customize the label
+        JLabel label = new JLabel(message, JLabel.CENTER);
+        label.setFont(new Font("Arial", Font.BOLD, 18));
+        label.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        // Customize the button
+        JButton okButton = new JButton("OK");
+        okButton.addActionListener(e -> gameOverDialog.dispose());
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(okButton);
+
+        // Add components to the dialog
+        gameOverDialog.add(label, BorderLayout.CENTER);
+        gameOverDialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        // Set dialog size and show it
+        gameOverDialog.setSize(300, 150);
+        gameOverDialog.setLocationRelativeTo(frame);
+        gameOverDialog.setVisible(true);
     }
 
+    private Piece pieceAt(int x, int y) {
+        return Piece.of(snapshot.pieceAt(Position.square(x, y)));
+    }
+
+    private boolean isKingInCheck(boolean isWhite) {
+        // Only the side to move can be in check in a legal position
+        return snapshot.inCheck() && snapshot.isWhiteToMove() == isWhite;
+    }
 
-    private class ButtonClickListener implements ActionListener {
+    private class SquareClickListener implements BoardView.SquareListener {
         int x, y;
+        boolean moveSubmitted;
 
-        public ButtonClickListener(int x, int y) {
+        @Override
+        public void squareClicked(int x, int y) {
             this.x = x;
             this.y = y;
-        }
-
-        @Override
-        public void actionPerformed(ActionEvent e) {
             handleAction();
         }
 
         private void handleAction() {
-            System.out.println("Selected piece: " + selectedPiece);
-            System.out.println("Clicked on square (" + x + ", " + y + ")");
+            if (snapshot == null) {
+                return; // The controller has not published the starting position yet
+            }
+            if (computerThinking) {
+                Log.info("The computer is thinking. Please wait for its move.");
+                return;
+            }
+            Log.debug(() -> "Selected piece: " + selectedPiece);
+            Log.debug(() -> "Clicked on square (" + x + ", " + y + ")");
 
-            Piece clickedPiece = pieces[x][y];
+            moveSubmitted = false;
+            Piece clickedPiece = pieceAt(x, y);
             if (selectedPiece != null) {
                 // We currently have a piece selected
                 handleSelectedPiece(clickedPiece);
@@ -172,7 +258,9 @@ public class ChessBoard {
                 // We do not have a piece selected
                 handleUnselectedPiece(clickedPiece);
             }
-            playClickSound();
+            if (!moveSubmitted) {
+                sounds.play(SoundService.Sound.CLICK); // A move plays its own sound
+            }
         }
 
         private void handleSelectedPiece(Piece clickedPiece) {
@@ -189,286 +277,83 @@ public class ChessBoard {
             selectedPiece = clickedPiece;
             selectedX = x;
             selectedY = y;
+            boardView.setSelectedSquare(Position.square(x, y));
             unhighlightSquares();
             highlightValidMoves();
-            System.out.println("Switched selection to another piece of the same color.");
+            Log.debug("Switched selection to another piece of the same color.");
         }
 
         private void processMove(Piece clickedPiece) {
             unhighlightSquares();
-            if (selectedPiece.isValidMove(selectedX, selectedY, x, y, pieces, ChessBoard.this)) {
-                // The selected piece can move to the clicked square
-
-
-                // Check if the move puts us in check
-
-
-                if (isKingInCheck(selectedPiece.isWhite())) {
-                    System.out.println("This move would put you in check. Please choose a different move.");
-                    return;
-                }
-
-                System.out.println("You can move the selected piece to this square.");
-                movePiece();
-
-                lastMove = new Move(selectedPiece, selectedX, selectedY, x, y);
-
-                // Check if the move is a castling move
-                // if the King moved more than two squares, then move the rook as well
-                System.out.println("x: " + x + " y: " + y);
-                if (selectedPiece instanceof King && Math.abs(y - selectedY) > 1){
-                    System.out.println("Trying to castle. Swap the rook too.");
-                    castleRook(y > selectedY);
-                }
-
-                // Check if the move is an en passant move
-                // if the Pawn moved diagonally and the destination square is empty, then remove the Pawn that was captured
-                if (selectedPiece instanceof Pawn && lastMove.fromY() != lastMove.toY() && lastMove.piece() == pieces[x][y]) {
-                    System.out.println("Trying to capture en passant. Remove the captured Pawn.");
-                    pieces[x + (selectedPiece.isWhite() ? 1 : -1)][y] = null;
-                    setIcon(buttons[x + (selectedPiece.isWhite() ? 1 : -1)][y], null);
-                }
-
-                // Check if opposing King is in check / checkmate
-                if (isKingInCheck(!selectedPiece.isWhite())) {
-                    System.out.println("Opposing King is in check.");
-                    if (isCheckmate(!selectedPiece.isWhite())) {
-                        System.out.println("Checkmate! Game over.");
-                        showGameOverDialog();
-                    }
-                }
-
-                if (selectedPiece instanceof Pawn) {
-                    // Check if the Pawn has reached the other side of the board
-                    if (selectedPiece.isWhite() && x == 0 || !selectedPiece.isWhite() && x == 7) {
-                        // Promote the Pawn to a Queen
-                        pieces[x][y] = new Queen(selectedPiece.isWhite());
-                        setIcon(buttons[x][y], pieces[x][y]);
-                    }
-                }
-
-
-//                checkCheckmate();
-            } else {
-                // The selected piece cannot move to the clicked square
-                System.out.println("You cannot move the selected piece to this square.");
+            int from = Position.square(selectedX, selectedY);
+            int to = Position.square(x, y);
+
+            // Look the clicked move up in the snapshot's legal moves, timed and recorded when instrumentation is on
+            ChessEvents.MoveValidation event = new ChessEvents.MoveValidation();
+            event.begin();
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            boolean legal = snapshot.find(from, to) != Moves.NONE;
+            if (Metrics.ENABLED) {
+                VALIDATION_TIME.recordNanos(System.nanoTime() - start);
             }
-
-            resetSelectedPiece();
-        }
-        private void castleRook(Boolean isKingSide) {
-            System.out.println("selectedX: " + selectedX + " selectedY: " + selectedY);
-            int rookX, rookY;
-            int newRookX = selectedX;
-            boolean isWhite = selectedPiece.isWhite();
-
-            if (isKingSide) {
-                rookX = selectedX;
-                rookY = selectedY + 3; // Assuming the rook is 3 squares to the right of the king
-                pieces[newRookX][selectedY + 1] = new Rook(selectedPiece.isWhite());
-
-                if (isWhite) {
-                    castlingState.whiteRightRookMoved = true;
-                } else {
-                    castlingState.blackRightRookMoved = true;
-                }
-            } else {
-                rookX = selectedX;
-                rookY = selectedY - 4; // Assuming the rook is 4 squares to the left of the king
-                pieces[newRookX][selectedY - 1] = new Rook(selectedPiece.isWhite());
-
-                if (isWhite) {
-                    castlingState.whiteLeftRookMoved = true;
-                } else {
-                    castlingState.blackLeftRookMoved = true;
-                }
-            }
-
-            buttons[newRookX][rookY < selectedY ? selectedY - 1 : selectedY + 1].setIcon(buttons[rookX][rookY].getIcon()); // Update the button icon using the original rook's icon
-            setIcon(buttons[rookX][rookY], null);
-            pieces[rookX][rookY] = null; // Clear the original rook's place
-
-            System.out.println(castlingState);
-        }
-
-
-
-        private void movePiece() {
-            updateCastlingState();
-            updatePiecePositions();
-            updateButtonIcons();
-        }
-
-        private void updateCastlingState() {
-            if (selectedPiece instanceof King || selectedPiece instanceof Rook) {
-                boolean isWhite = selectedPiece.isWhite();
-                boolean isKing = selectedPiece instanceof King;
-                boolean isRightRook = selectedPiece instanceof Rook && selectedY == 7;
-                boolean isLeftRook = selectedPiece instanceof Rook && selectedY == 0;
-
-                if (isWhite) {
-                    castlingState.whiteKingMoved = castlingState.whiteKingMoved || isKing;
-                    castlingState.whiteRightRookMoved = castlingState.whiteRightRookMoved || isRightRook;
-                    castlingState.whiteLeftRookMoved = castlingState.whiteLeftRookMoved || isLeftRook;
-                } else {
-                    castlingState.blackKingMoved = castlingState.blackKingMoved || isKing;
-                    castlingState.blackRightRookMoved = castlingState.blackRightRookMoved || isRightRook;
-                    castlingState.blackLeftRookMoved = castlingState.blackLeftRookMoved || isLeftRook;
-                }
-
-                System.out.println(castlingState);
+            event.end();
+            if (event.shouldCommit()) {
+                event.from = Moves.squareName(from);
+                event.to = Moves.squareName(to);
+                event.legal = legal;
+                event.commit();
             }
-        }
 
-        private void updatePiecePositions() {
-            pieces[x][y] = selectedPiece;
-            pieces[selectedX][selectedY] = null;
-        }
+            if (legal) {
+                // The selected piece can move to the clicked square without leaving its King in check
 
-        private void updateButtonIcons() {
-            setIcon(buttons[x][y], selectedPiece);
-            setIcon(buttons[selectedX][selectedY], null);
-        }
-
-        private void checkCheckmate() {
-            if (isCheckmate(!selectedPiece.isWhite())) {
-                System.out.println("Checkmate! Game over.");
-                showGameOverDialog();
+                Log.debug("You can move the selected piece to this square.");
+                Log.debug(() -> "x: " + x + " y: " + y);
+                controller.submitMove(from, to); // Validated again and applied on the controller's thread
+                moveSubmitted = true;
+            } else {
+                // The selected piece cannot move to the clicked square, or it is not this side's turn
+                Log.debug("You cannot move the selected piece to this square.");
             }
-        }
 
-        private void showGameOverDialog() {
-            JDialog gameOverDialog = new JDialog(frame, "Game Over", true);
-            gameOverDialog.setLayout(new BorderLayout());
-
-            // Customize the label
-            JLabel label = new JLabel("Checkmate! Game over.", JLabel.CENTER);
-            label.setFont(new Font("Arial", Font.BOLD, 18));
-            label.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-
-            // Customize the button
-            JButton okButton = new JButton("OK");
-            okButton.addActionListener(e -> gameOverDialog.dispose());
-            JPanel buttonPanel = new JPanel();
-            buttonPanel.add(okButton);
-
-            // Add components to the dialog
-            gameOverDialog.add(label, BorderLayout.CENTER);
-            gameOverDialog.add(buttonPanel, BorderLayout.SOUTH);
-
-            // Set dialog size and show it
-            gameOverDialog.setSize(300, 150);
-            gameOverDialog.setLocationRelativeTo(frame);
-            gameOverDialog.setVisible(true);
+            resetSelectedPiece();
         }
 
         private void resetSelectedPiece() {
             selectedPiece = null;
             selectedX = -1;
             selectedY = -1;
+            boardView.setSelectedSquare(Position.NO_SQUARE);
         }
 
         private void handleUnselectedPiece(Piece clickedPiece) {
             selectedPiece = clickedPiece;
             selectedX = x;
             selectedY = y;
+            boardView.setSelectedSquare(selectedPiece != null ? Position.square(x, y) : Position.NO_SQUARE);
             if (selectedPiece != null) {
                 String pieceType = selectedPiece.getClass().getSimpleName();
                 String color = selectedPiece.isWhite() ? "White" : "Dark";
-                System.out.println("Selected a " + color + " " + pieceType);
+                Log.debug(() -> "Selected a " + color + " " + pieceType);
                 highlightValidMoves();
             } else {
-                System.out.println("Selected an empty square");
-            }
-        }
-
-        private void playClickSound() {
-            try {
-                URL soundUrl = getClass().getClassLoader().getResource("click-sound.wav"); // Replace with your sound file
-                assert soundUrl != null;
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(soundUrl);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioIn);
-                clip.start();
-            } catch (UnsupportedAudioFileException | IOException | LineUnavailableException ex) {
-                ex.printStackTrace();
+                Log.debug("Selected an empty square");
             }
         }
 
         private void highlightValidMoves() {
-            for (int i = 0; i < 8; i++) {
-                for (int j = 0; j < 8; j++) {
-                    if (selectedPiece.isValidMove(selectedX, selectedY, i, j, pieces, ChessBoard.this)) {
-                        buttons[i][j].setBorder(BorderFactory.createLineBorder(Color.GREEN, 3)); // Set green border
-                    }
+            int from = Position.square(selectedX, selectedY);
+            long targets = 0L;
+            for (int move : snapshot.legalMoves()) {
+                if (Moves.from(move) == from) {
+                    targets |= 1L << Moves.to(move); // Outlined in green
                 }
             }
+            boardView.setHighlights(targets);
         }
 
         private void unhighlightSquares() {
-            for (int i = 0; i < 8; i++) {
-                for (int j = 0; j < 8; j++) {
-                    if ((i + j) % 2 == 0) {
-                        buttons[i][j].setBackground(Color.WHITE);
-                    } else {
-                        buttons[i][j].setBackground(new Color(0, 49, 255, 255));
-                    }
-                    buttons[i][j].setBorder(BorderFactory.createEmptyBorder()); // Reset border
-                }
-            }
-        }
-    }
-
-    public class CastlingState {
-        public boolean whiteKingMoved;
-        public boolean blackKingMoved;
-        public boolean whiteLeftRookMoved;
-        public boolean whiteRightRookMoved;
-        public boolean blackLeftRookMoved;
-        public boolean blackRightRookMoved;
-
-        // Constructor
-        public CastlingState(boolean whiteKingMoved, boolean blackKingMoved, boolean whiteLeftRookMoved, boolean whiteRightRookMoved, boolean blackLeftRookMoved, boolean blackRightRookMoved) {
-            this.whiteKingMoved = whiteKingMoved;
-            this.blackKingMoved = blackKingMoved;
-            this.whiteLeftRookMoved = whiteLeftRookMoved;
-            this.whiteRightRookMoved = whiteRightRookMoved;
-            this.blackLeftRookMoved = blackLeftRookMoved;
-            this.blackRightRookMoved = blackRightRookMoved;
-        }
-
-        public boolean canCastle(boolean isWhite, boolean isKingSide) {
-            // Check if King is in check
-            if (isKingInCheck(isWhite)) {
-                System.out.println("You cannot castle while in check.");
-                return false;
-            }
-            // Check if King and Rook have moved and if the squares are attacked
-            if (isWhite) {
-                if (isKingSide) {
-                    return !whiteKingMoved && !whiteRightRookMoved && isSquareNotAttacked(7, 5, true) && isSquareNotAttacked(7, 6, true);
-                } else {
-                    return !whiteKingMoved && !whiteLeftRookMoved && isSquareNotAttacked(7, 3, true) && isSquareNotAttacked(7, 2, true) && isSquareNotAttacked(7, 1, true);
-                }
-            } else {
-                if (isKingSide) {
-                    return !blackKingMoved && !blackRightRookMoved && isSquareNotAttacked(0, 5, false) && isSquareNotAttacked(0, 7, false);
-                } else {
-                    return !blackKingMoved && !blackLeftRookMoved && isSquareNotAttacked(0, 3, false) && isSquareNotAttacked(0, 2, false) && isSquareNotAttacked(0, 1, false);
-                }
-            }
-        }
-
-        @Override
-        public String toString() {
-            return "CastlingState{" +
-                    "whiteKingMoved=" + whiteKingMoved +
-                    ", blackKingMoved=" + blackKingMoved +
-                    ", whiteLeftRookMoved=" + whiteLeftRookMoved +
-                    ", whiteRightRookMoved=" + whiteRightRookMoved +
-                    ", blackLeftRookMoved=" + blackLeftRookMoved +
-                    ", blackRightRookMoved=" + blackRightRookMoved +
-                    '}';
+            boardView.setHighlights(0L);
         }
     }
 }
@@ -0,0 +1,71 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the GUI's rule checks and drawing, under the "Chess" category. They cost
+ * next to nothing unless a recording is running, e.g. one started with
+ * {@code -XX:StartFlightRecording=filename=chess.jfr}; open the file in JDK Mission Control or list it
+ * with {@code jfr print --categories Chess chess.jfr}.
+ */
+final class ChessEvents {
+    private ChessEvents() {
+    }
+
+    @Name("chess.MoveValidation")
+    @Label("Move Validation")
+    @Category("Chess")
+    @Description("A clicked move checked against the legal moves")
+    @StackTrace(false)
+    static final class MoveValidation extends Event {
+        @Label("From")
+        String from;
+        @Label("To")
+        String to;
+        @Label("Legal")
+        boolean legal;
+    }
+
+    @Name("chess.GameStatus")
+    @Label("Game Status Check")
+    @Category("Chess")
+    @Description("Legal move generation and the checkmate, stalemate and draw checks after a move")
+    @StackTrace(false)
+    static final class GameStatus extends Event {
+        @Label("Status")
+        String status;
+        @Label("Legal Moves")
+        int legalMoves;
+    }
+
+    @Name("chess.IconLoad")
+    @Label("Icon Load")
+    @Category("Chess")
+    @Description("A piece image decoded or rescaled")
+    @StackTrace(false)
+    static final class IconLoad extends Event {
+        @Label("Image")
+        String image;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    @Name("chess.BoardPaint")
+    @Label("Board Paint")
+    @Category("Chess")
+    @Description("One repaint of the board, or the part of it that changed")
+    @StackTrace(false)
+    static final class BoardPaint extends Event {
+        @Label("Squares")
+        int squares;
+    }
+}
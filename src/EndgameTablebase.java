@@ -0,0 +1,338 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact results for every position with at most three pieces (king and queen, rook or pawn against a
+ * lone king, and the dead draws), so the search and the game-over check know the outcome without
+ * searching. This is the project's own format, not Syzygy, and it is off unless a directory of tables is
+ * configured.
+ * <p>
+ * Each table holds one byte per position: 0 for a draw, otherwise the number of plies to mate with best
+ * play plus one, where odd distances are wins for the side to move. Tables are built by retrograde
+ * analysis with {@link #build}, which takes several seconds, and memory-mapped read-only by {@link #open}.
+ * A probe reads a single byte, so the operating system's page cache keeps the hot parts in memory.
+ * Positions with castling rights are not covered. Safe to share between threads.
+ * <p>
+ * Usage: {@code EndgameTablebase [--build] <directory> [fen]...} opens the tables (building any missing ones
+ * with {@code --build}) and probes the positions.
+ */
+public final class EndgameTablebase {
+    public static final int MAX_PIECES = 3;
+
+    private static final int MAGIC = 0x44544D31; // "DTM1"
+    private static final int HEADER_SIZE = 8;
+    private static final int TABLE_SIZE = 2 * 64 * 64 * 64;
+    // Promotions lead into the queen and rook tables, so those are built before the pawn table
+    private static final int[] TYPES = {Position.QUEEN, Position.ROOK, Position.PAWN};
+
+    // Distances while building; children outside the table are encoded below zero as well
+    private static final int UNKNOWN = -1;
+    private static final int DRAW = -2;
+    private static final int ILLEGAL = -3;
+    private static final int DRAWN_CHILD = -1;
+
+    public enum Wdl {
+        LOSS, DRAW, WIN
+    }
+
+    /**
+     * Outcome of a position for the side to move.
+     *
+     * @param wdl         Win, draw or loss with best play
+     * @param pliesToMate Plies until mate with best play, 0 for a draw
+     */
+    public record Probe(Wdl wdl, int pliesToMate) {
+    }
+
+    private static final Probe DRAWN = new Probe(Wdl.DRAW, 0);
+
+    private final ByteBuffer[] tables = new ByteBuffer[6];
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    private EndgameTablebase(Path directory, boolean buildMissing) throws IOException {
+        if (buildMissing) {
+            Files.createDirectories(directory);
+        }
+        for (int type : TYPES) {
+            Path file = directory.resolve("K" + "PNBRQK".charAt(type) + "vK.dtm");
+            tables[type] = map(file, type);
+            if (tables[type] == null && buildMissing) {
+                long start = System.nanoTime();
+                write(file, type, build(type));
+                tables[type] = map(file, type);
+                Log.info(String.format("Built %s in %.1f s", file.getFileName(), (System.nanoTime() - start) / 1e9));
+            }
+            if (tables[type] == null) {
+                throw new IOException("No usable " + file.getFileName() + " in " + directory
+                        + "; build the tables with EndgameTablebase --build " + directory);
+            }
+        }
+    }
+
+    /**
+     * Maps the tables in {@code directory}. Nothing is built: a missing or damaged table is an error.
+     */
+    public static EndgameTablebase open(Path directory) throws IOException {
+        return new EndgameTablebase(directory, false);
+    }
+
+    /**
+     * Builds and saves any tables missing from {@code directory} or damaged, then maps them all.
+     */
+    public static EndgameTablebase build(Path directory) throws IOException {
+        return new EndgameTablebase(directory, true);
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean build = args.length > 0 && args[0].equals("--build");
+        int first = build ? 1 : 0;
+        if (args.length <= first) {
+            System.out.println("Usage: EndgameTablebase [--build] <directory> [fen]...");
+            return;
+        }
+        Path directory = Path.of(args[first]);
+        EndgameTablebase tablebase = build ? build(directory) : open(directory);
+        for (int i = first + 1; i < args.length; i++) {
+            Position position = Position.fromFen(args[i]);
+            Probe probe = tablebase.probe(position);
+            if (probe == null) {
+                System.out.println(args[i] + ": not covered");
+                continue;
+            }
+            int move = tablebase.bestMove(position);
+            System.out.println(args[i] + ": " + probe.wdl() + (probe.wdl() == Wdl.DRAW ? "" : " in " + probe.pliesToMate() + " plies")
+                    + (move == Moves.NONE ? "" : ", best move " + San.format(position, move)));
+        }
+        System.out.printf("%d probes, %d hits (%.1f%%)%n", tablebase.probes(), tablebase.hits(), tablebase.hitRate() * 100);
+    }
+
+    /**
+     * Returns the outcome of {@code position}, or null if it has more than {@link #MAX_PIECES} pieces or
+     * castling rights.
+     */
+    public Probe probe(Position position) {
+        probes.increment();
+        if (Long.bitCount(position.occupied()) > MAX_PIECES || position.castlingRights() != 0) {
+            return null;
+        }
+        hits.increment();
+        return lookup(position);
+    }
+
+    /**
+     * Returns the move that wins fastest, draws, or loses slowest, or {@link Moves#NONE} if the position
+     * is not covered or has no legal moves. The position is left as it was.
+     */
+    public int bestMove(Position position) {
+        if (probe(position) == null) {
+            return Moves.NONE;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        int best = Moves.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            Probe reply = lookup(position);
+            position.unmakeMove();
+            // The reply is from the opponent's side: their quickest loss is our best move
+            int rank = switch (reply.wdl()) {
+                case LOSS -> 1000 - reply.pliesToMate();
+                case DRAW -> 0;
+                case WIN -> -1000 + reply.pliesToMate();
+            };
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves.get(i);
+            }
+        }
+        return best;
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public double hitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    // Outcome of a covered position, without counting it as a probe
+    private Probe lookup(Position position) {
+        long kings = position.pieces(Position.WHITE, Position.KING) | position.pieces(Position.BLACK, Position.KING);
+        long others = position.occupied() & ~kings;
+        if (others == 0) {
+            return DRAWN;
+        }
+        ByteBuffer table = tables[Position.typeOf(position.pieceAt(Long.numberOfTrailingZeros(others)))];
+        if (table == null) {
+            return DRAWN; // A lone knight or bishop cannot mate
+        }
+        int stored = Byte.toUnsignedInt(table.get(HEADER_SIZE + index(position)));
+        if (stored == 0) {
+            return DRAWN;
+        }
+        int plies = stored - 1;
+        return new Probe((plies & 1) == 1 ? Wdl.WIN : Wdl.LOSS, plies);
+    }
+
+    // Index of a three-piece position, seen from the side with the extra piece as White
+    private static int index(Position position) {
+        long kings = position.pieces(Position.WHITE, Position.KING) | position.pieces(Position.BLACK, Position.KING);
+        int piece = Long.numberOfTrailingZeros(position.occupied() & ~kings);
+        int strong = Position.colourOf(position.pieceAt(piece));
+        int flip = strong == Position.WHITE ? 0 : 56; // Mirroring the ranks turns Black's pawn into White's
+        int toMove = position.sideToMove() == strong ? 0 : 1;
+        return ((toMove * 64 + (position.kingSquare(strong) ^ flip)) * 64
+                + (position.kingSquare(1 - strong) ^ flip)) * 64 + (piece ^ flip);
+    }
+
+    /**
+     * Retrograde analysis of king and {@code type} against king. Every position's legal moves are listed
+     * once; then pass n marks the wins in n plies (a move to a loss in n - 1) and the losses in n plies
+     * (every move leads to a win, the longest in n - 1), until a pass finds nothing new. What is left is
+     * drawn.
+     */
+    private byte[] build(int type) {
+        int[] distance = new int[TABLE_SIZE];
+        int[] firstChild = new int[TABLE_SIZE + 1];
+        int[] children = new int[1 << 20];
+        int childCount = 0;
+        int longest = 0;
+        int[] codes = new int[64];
+        MoveList moves = new MoveList();
+
+        for (int index = 0; index < TABLE_SIZE; index++) {
+            firstChild[index] = childCount;
+            int strongKing = (index >>> 12) & 63;
+            int weakKing = (index >>> 6) & 63;
+            int piece = index & 63;
+            if (strongKing == weakKing || piece == strongKing || piece == weakKing
+                    || (Attacks.king(strongKing) & (1L << weakKing)) != 0
+                    || type == Position.PAWN && (piece < 8 || piece >= 56)) {
+                distance[index] = ILLEGAL;
+                continue;
+            }
+            Arrays.fill(codes, Position.EMPTY);
+            codes[strongKing] = Position.code(Position.WHITE, Position.KING);
+            codes[weakKing] = Position.code(Position.BLACK, Position.KING);
+            codes[piece] = Position.code(Position.WHITE, type);
+            Position position = Position.of(codes, index < TABLE_SIZE / 2 ? Position.WHITE : Position.BLACK);
+            int us = position.sideToMove();
+            if (position.isInCheck(1 - us)) {
+                distance[index] = ILLEGAL;
+                continue;
+            }
+            MoveGenerator.generateLegal(position, moves);
+            if (moves.isEmpty()) {
+                distance[index] = position.isInCheck(us) ? 0 : DRAW;
+                continue;
+            }
+            distance[index] = UNKNOWN;
+            if (childCount + moves.size() > children.length) {
+                children = Arrays.copyOf(children, children.length * 2);
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                position.makeMove(move);
+                int child;
+                if (Long.bitCount(position.occupied()) < MAX_PIECES) {
+                    child = DRAWN_CHILD; // The piece was captured
+                } else if (Moves.promotion(move) != 0) {
+                    Probe promoted = lookup(position);
+                    child = promoted.wdl() == Wdl.DRAW ? DRAWN_CHILD : -2 - promoted.pliesToMate();
+                    longest = Math.max(longest, promoted.pliesToMate());
+                } else {
+                    child = index(position);
+                }
+                position.unmakeMove();
+                children[childCount++] = child;
+            }
+        }
+        firstChild[TABLE_SIZE] = childCount;
+
+        for (int plies = 1; plies <= longest + 1; plies++) {
+            boolean wins = (plies & 1) == 1;
+            for (int index = 0; index < TABLE_SIZE; index++) {
+                if (distance[index] != UNKNOWN) {
+                    continue;
+                }
+                boolean found = !wins;
+                int slowest = -1;
+                for (int i = firstChild[index]; i < firstChild[index + 1]; i++) {
+                    int child = children[i];
+                    int reply = child >= 0 ? distance[child] : child == DRAWN_CHILD ? DRAW : -2 - child;
+                    if (wins && reply == plies - 1) {
+                        found = true;
+                        break;
+                    }
+                    if (!wins && (reply < 0 || (reply & 1) == 0)) {
+                        found = false; // A move that doesn't lose to a known win
+                        break;
+                    }
+                    slowest = Math.max(slowest, reply);
+                }
+                if (found && (wins || slowest == plies - 1)) {
+                    distance[index] = plies;
+                    longest = Math.max(longest, plies);
+                }
+            }
+        }
+
+        byte[] table = new byte[TABLE_SIZE];
+        for (int index = 0; index < TABLE_SIZE; index++) {
+            if (distance[index] >= 0) {
+                if (distance[index] >= 255) {
+                    throw new IllegalStateException("Distance to mate too long to store: " + distance[index]);
+                }
+                table[index] = (byte) (distance[index] + 1);
+            }
+        }
+        return table;
+    }
+
+    // Maps a table file, or returns null if it is missing or not a valid table for this piece
+    private static ByteBuffer map(Path file, int type) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + TABLE_SIZE) {
+                Log.warn("Ignoring " + file + ": wrong size " + channel.size());
+                return null;
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (table.getInt(0) != MAGIC || table.getInt(4) != type) {
+                Log.warn("Ignoring " + file + ": not a table for this material");
+                return null;
+            }
+            return table;
+        }
+    }
+
+    private static void write(Path file, int type, byte[] table) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(type).flip();
+            ByteBuffer body = ByteBuffer.wrap(table);
+            while (header.hasRemaining() || body.hasRemaining()) {
+                out.write(new ByteBuffer[]{header, body});
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
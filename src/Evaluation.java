@@ -0,0 +1,147 @@
+/**
+ * Static evaluation: material plus piece-square tables (Tomasz Michniewski's "simplified evaluation
+ * function"), with the king table blended from middlegame to endgame as pieces come off.
+ * Scores are in centipawns from the point of view of the side to move.
+ */
+public final class Evaluation {
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    // Game phase weight per piece type; 24 is the full starting set
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    static final int MAX_PHASE = 24;
+
+    // Tables are written as seen from White with the eighth rank first, so a8 is index 0
+    private static final int[][] TABLES = {
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private Evaluation() {
+    }
+
+    /**
+     * Material plus table value of piece {@code code} on {@code square} for its owner, using the
+     * middlegame king table.
+     */
+    static int pieceSquareValue(int code, int square) {
+        int type = Position.typeOf(code);
+        int flip = Position.colourOf(code) == Position.WHITE ? 56 : 0;
+        return PIECE_VALUES[type] + TABLES[type][square ^ flip];
+    }
+
+    /**
+     * Endgame table value of king {@code code} on {@code square} for its owner.
+     */
+    static int kingEndgameValue(int code, int square) {
+        int flip = Position.colourOf(code) == Position.WHITE ? 56 : 0;
+        return KING_ENDGAME[square ^ flip];
+    }
+
+    /**
+     * Game phase from {@link #MAX_PHASE} with the full starting set down to 0 with only kings and pawns.
+     */
+    static int phase(Position position) {
+        int phase = 0;
+        for (int colour = Position.WHITE; colour <= Position.BLACK; colour++) {
+            for (int type = Position.KNIGHT; type < Position.KING; type++) {
+                phase += PHASE_WEIGHTS[type] * Long.bitCount(position.pieces(colour, type));
+            }
+        }
+        return Math.min(phase, MAX_PHASE);
+    }
+
+    public static int evaluate(Position position) {
+        int score = 0;
+        int phase = 0;
+        int kingMiddlegame = 0;
+        int kingEndgame = 0;
+        for (int colour = Position.WHITE; colour <= Position.BLACK; colour++) {
+            int sign = colour == Position.WHITE ? 1 : -1;
+            int flip = colour == Position.WHITE ? 56 : 0; // Mirror the rank so both sides read the same table
+            for (int type = Position.PAWN; type < Position.KING; type++) {
+                for (long bits = position.pieces(colour, type); bits != 0; bits &= bits - 1) {
+                    int square = Long.numberOfTrailingZeros(bits);
+                    score += sign * (PIECE_VALUES[type] + TABLES[type][square ^ flip]);
+                    phase += PHASE_WEIGHTS[type];
+                }
+            }
+            int king = position.kingSquare(colour);
+            if (king != Position.NO_SQUARE) {
+                kingMiddlegame += sign * TABLES[Position.KING][king ^ flip];
+                kingEndgame += sign * KING_ENDGAME[king ^ flip];
+            }
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        score = (score * MAX_PHASE + kingMiddlegame * phase + kingEndgame * (MAX_PHASE - phase)) / MAX_PHASE;
+        return position.isWhiteToMove() ? score : -score;
+    }
+}
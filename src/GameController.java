@@ -0,0 +1,403 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Owns the game and runs everything that touches the rules on a single worker thread: validating and
+ * applying the player's moves, the computer's search, and loading and saving games. The UI only sends
+ * requests and receives {@link GameSnapshot}s, delivered on the event dispatch thread, so however
+ * expensive the rules get the UI never waits for them.
+ * <p>
+ * Every game is written move by move to a {@link GameJournal}, and a game left unfinished, by a crash or
+ * by closing the window, is resumed the next time.
+ */
+public final class GameController implements AutoCloseable {
+    private static final Limits COMPUTER_LIMITS = Limits.moveTime(1000);
+    private static final int CLOSE_TIMEOUT_SECONDS = 10;
+    private static final LatencyHistogram STATUS_TIME = Metrics.histogram("game.statusCheck");
+
+    // Everything below is only touched on the worker thread
+    private final Position position = Position.startPosition();
+    private final MoveList legalMoves = new MoveList();
+    private final GameStateTracker tracker = new GameStateTracker();
+    private GameStateTracker.Status status = GameStateTracker.Status.ONGOING;
+    private String startFen = position.toFen();
+    private int[] moves = new int[0];
+    private boolean computerPlaysBlack = false;
+    private PolyglotBook book;
+    private EndgameTablebase tablebase;
+    private GameJournal journal;
+    private long journalId = -1;
+    private final Random bookRandom = new Random();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SearchEngine engine = new SearchEngine(new TranspositionTable(64));
+    private final Consumer<GameSnapshot> listener;
+    private final Consumer<String> errorListener;
+
+    /**
+     * @param listener      Receives every new snapshot, on the event dispatch thread
+     * @param errorListener Receives messages for failed loads and saves, on the event dispatch thread
+     */
+    public GameController(Consumer<GameSnapshot> listener, Consumer<String> errorListener) {
+        this.listener = listener;
+        this.errorListener = errorListener;
+        openTablebase();
+        worker.execute(this::resumeJournaledGame);
+    }
+
+    /**
+     * Asks to play the move from {@code from} to {@code to} (promoting to a queen). Illegal moves are ignored.
+     */
+    public void submitMove(int from, int to) {
+        worker.execute(() -> {
+            int move = legalMoves.find(from, to);
+            if (status.isGameOver()) {
+                Log.info(status.description());
+                return;
+            }
+            if (move == Moves.NONE) {
+                Log.info("You cannot move the selected piece to this square.");
+                return;
+            }
+            apply(move);
+            publish(false);
+            playComputerIfDue();
+        });
+    }
+
+    public void setComputerPlaysBlack(boolean computerPlaysBlack) {
+        worker.execute(() -> {
+            this.computerPlaysBlack = computerPlaysBlack;
+            playComputerIfDue();
+        });
+    }
+
+    public void loadFen(String fen) {
+        worker.execute(() -> {
+            try {
+                load(Position.fromFen(fen), new int[0]);
+            } catch (IllegalArgumentException e) {
+                reportError("Invalid FEN: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Loads the first game of a PGN file.
+     */
+    public void loadPgn(Path path) {
+        worker.execute(() -> {
+            try (PgnReader reader = PgnReader.open(path)) {
+                PgnGame game = reader.next();
+                if (game == null) {
+                    reportError("No game found in the file.");
+                    return;
+                }
+                load(game.startPosition(), game.decodeMoves());
+            } catch (IOException | IllegalArgumentException e) {
+                reportError(e.getMessage());
+            }
+        });
+    }
+
+    public void savePgn(Path path) {
+        worker.execute(() -> {
+            try (Writer out = Files.newBufferedWriter(path)) {
+                PgnWriter.write(PgnWriter.toGame(Position.fromFen(startFen), moves, result()), out);
+                Log.info("Saved " + moves.length + " moves to " + path);
+            } catch (IOException e) {
+                reportError(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Opens a Polyglot opening book, replacing any open one. The computer plays from the book while it
+     * has moves for the position, and every snapshot lists them.
+     */
+    public void openBook(Path path) {
+        worker.execute(() -> {
+            try {
+                PolyglotBook opened = PolyglotBook.open(path);
+                closeBook();
+                book = opened;
+                Log.info("Opened book " + path + " with " + book.size() + " entries");
+                publish(false);
+                playComputerIfDue();
+            } catch (IOException e) {
+                reportError(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops the search, closes the opening book and the journal, and waits for the worker thread to finish
+     * what was queued, so the last move is on disk before the program exits.
+     */
+    @Override
+    public void close() {
+        engine.stop();
+        worker.execute(this::closeBook);
+        worker.execute(this::closeJournal);
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.warn("The game thread didn't finish within " + CLOSE_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        engine.close();
+    }
+
+    private void load(Position start, int[] gameMoves) {
+        journalEnd();
+        setUp(start, gameMoves);
+        journalStart();
+        publish(false);
+        playComputerIfDue();
+    }
+
+    private void setUp(Position start, int[] gameMoves) {
+        position.copyFrom(start);
+        startFen = start.toFen();
+        tracker.reset(position);
+        for (int move : gameMoves) {
+            position.makeMove(move);
+            tracker.record(position);
+        }
+        moves = gameMoves.clone();
+        updateStatus();
+    }
+
+    private void apply(int move) {
+        // Promotion, castling rights and the en passant square are all handled by the position
+        position.makeMove(move);
+        moves = Arrays.copyOf(moves, moves.length + 1);
+        moves[moves.length - 1] = move;
+        tracker.record(position);
+        updateStatus();
+        journalMove(move);
+    }
+
+    // Legal moves for the new position, then checkmate, stalemate, draws and tablebase results
+    private void updateStatus() {
+        ChessEvents.GameStatus event = new ChessEvents.GameStatus();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        MoveGenerator.generateLegal(position, legalMoves);
+        status = tracker.status(position, !legalMoves.isEmpty());
+        if (Metrics.ENABLED) {
+            STATUS_TIME.recordNanos(System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.status = status.name();
+            event.legalMoves = legalMoves.size();
+            event.commit();
+        }
+    }
+
+    private void playComputerIfDue() {
+        if (!computerPlaysBlack || position.isWhiteToMove() || status.isGameOver()) {
+            return;
+        }
+        int bookMove = book == null ? Moves.NONE : book.pick(position, bookRandom);
+        if (bookMove != Moves.NONE) {
+            Log.info("Computer plays " + Moves.toUci(bookMove) + " (book)");
+            apply(bookMove);
+            publish(false);
+            return;
+        }
+        publish(true);
+        SearchResult result = engine.bestMove(position.copy(), COMPUTER_LIMITS);
+        Log.info(() -> "Computer plays " + Moves.toUci(result.bestMove()) + " (depth " + result.depth() + ", score " + result.score() + ")");
+        if (tablebase != null && tablebase.probes() > 0) {
+            Log.debug(() -> String.format("Endgame tablebase: %d probes, %d hits (%.1f%%)",
+                    tablebase.probes(), tablebase.hits(), tablebase.hitRate() * 100));
+        }
+        if (result.bestMove() != Moves.NONE) {
+            apply(result.bestMove());
+        }
+        publish(false);
+    }
+
+    private String result() {
+        return status.result(position.sideToMove());
+    }
+
+    private void publish(boolean computerThinking) {
+        List<PolyglotBook.BookMove> bookMoves = book == null ? List.of() : book.lookup(position);
+        GameSnapshot snapshot = GameSnapshot.of(position, legalMoves, moves, status, startFen, computerThinking,
+                bookMoves);
+        SwingUtilities.invokeLater(() -> listener.accept(snapshot));
+    }
+
+    // Tablebases are opt-in with -Dchess.tablebases=<dir>. Mapping the tables is quick but touches the disk, so it
+    // happens on a thread of their own and they are handed to the worker once ready
+    private void openTablebase() {
+        String directory = System.getProperty("chess.tablebases");
+        if (directory == null || directory.isBlank()) {
+            return;
+        }
+        Thread opener = new Thread(() -> {
+            try {
+                EndgameTablebase opened = EndgameTablebase.open(Path.of(directory));
+                worker.execute(() -> attachTablebase(opened));
+            } catch (IOException | InvalidPathException e) {
+                Log.warn("Endgame tablebase unavailable: " + e.getMessage());
+            } catch (RejectedExecutionException e) {
+                Log.debug("Endgame tablebase ready after the game was closed");
+            }
+        }, "tablebase");
+        opener.setDaemon(true);
+        opener.start();
+    }
+
+    private void attachTablebase(EndgameTablebase opened) {
+        tablebase = opened;
+        tracker.setTablebase(opened);
+        engine.setTablebase(opened);
+        // A game that reached a covered position while the tables were opening ends now
+        if (!status.isGameOver()) {
+            updateStatus();
+            if (status.isGameOver()) {
+                journalEnd();
+                publish(false);
+            }
+        }
+    }
+
+    // Opens the journal and continues its latest unfinished game, or starts a new one. Older unfinished games
+    // are ended as abandoned, as is the latest if it can't be replayed; an older one is never resumed instead.
+    private void resumeJournaledGame() {
+        try {
+            journal = GameJournal.open(GameJournal.defaultDirectory());
+        } catch (IOException e) {
+            Log.warn("Game journal unavailable: " + e.getMessage());
+        }
+        List<GameJournal.JournaledGame> unfinished = journal == null ? List.of() : journal.inProgress();
+        for (int i = unfinished.size() - 1; i >= 0; i--) {
+            GameJournal.JournaledGame game = unfinished.get(i);
+            if (i == unfinished.size() - 1) {
+                try {
+                    setUp(game.startPosition(), game.decodeMoves());
+                    journalId = game.id();
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    Log.warn("Couldn't resume journaled game " + game.id() + ": " + e.getMessage());
+                }
+            }
+            try {
+                journal.endGame(game.id(), "*");
+            } catch (IOException e) {
+                journalFailed(e);
+                break;
+            }
+        }
+        if (journalId < 0) {
+            load(Position.startPosition(), new int[0]);
+            return;
+        }
+        Log.info("Resumed the unfinished game after " + moves.length + " moves");
+        if (status.isGameOver()) {
+            journalEnd();
+        }
+        publish(false);
+        playComputerIfDue();
+    }
+
+    private void journalStart() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journalId = journal.startGame(startFen);
+            for (int move : moves) {
+                journal.appendMove(journalId, move);
+            }
+            if (status.isGameOver()) {
+                journalEnd();
+            }
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    // Moves aren't waited for: the journal's flusher has them on disk within a few milliseconds, and
+    // close() writes out whatever is left
+    private void journalMove(int move) {
+        if (journal == null || journalId < 0) {
+            return;
+        }
+        try {
+            journal.appendMove(journalId, move);
+            if (status.isGameOver()) {
+                journalEnd();
+            }
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    private void journalEnd() {
+        if (journal == null || journalId < 0) {
+            return;
+        }
+        try {
+            journal.endGame(journalId, result());
+            journalId = -1;
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    // The game goes on without the journal
+    private void journalFailed(IOException e) {
+        Log.warn("Game journal disabled: " + e.getMessage());
+        closeJournal();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Log.warn("Couldn't close the game journal: " + e.getMessage());
+            }
+            journal = null;
+            journalId = -1;
+        }
+    }
+
+    private void closeBook() {
+        if (book != null) {
+            try {
+                book.close();
+            } catch (IOException e) {
+                Log.warn("Couldn't close the opening book: " + e.getMessage());
+            }
+            book = null;
+        }
+    }
+
+    private void reportError(String message) {
+        SwingUtilities.invokeLater(() -> errorListener.accept(message));
+    }
+}
@@ -0,0 +1,695 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of games in progress: every game start, move and result is written as a checksummed
+ * record, so games survive a crash or restart. Appending only queues the record; a background thread writes
+ * whatever has queued up and forces it to disk with one fsync for the whole batch (group commit).
+ * {@link #awaitDurable} waits for a record to reach the disk.
+ * <p>
+ * The journal is a series of segment files. When one fills up, the games still in progress are written to
+ * a snapshot, a new segment is started and the older files are deleted, so recovery reads at most one
+ * snapshot and one segment's worth of records. Opening the journal recovers it: the latest snapshot is
+ * loaded, later records are replayed, and a record torn by a crash at the end is cut off.
+ * <p>
+ * Record layout, big-endian: payload length and CRC-32 of the payload as 32-bit ints, then the payload: a
+ * type byte and the game id, followed by the start FEN (16-bit length and UTF-8), a compact move (see
+ * {@link Moves#toCompact}) or a result index (see {@link GameStore#RESULTS}). Safe to share between threads.
+ * <p>
+ * Usage: {@code GameJournal <empty directory> [--games n] [--threads n] [--durable] [--segment-mb n]}
+ * journals random games and reports append throughput, then reopens the journal and reports recovery time.
+ * With {@code --durable} every move waits for its fsync.
+ */
+public final class GameJournal implements Closeable {
+    static final int SEGMENT_MAGIC = 0x434A4C31; // "CJL1"
+    static final int SNAPSHOT_MAGIC = 0x434A5331; // "CJS1"
+    static final int SEGMENT_HEADER_SIZE = 12;
+    static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    private static final byte START = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_PENDING = 16 << 20;
+
+    /**
+     * A game recovered from the journal, or a copy of one in progress.
+     *
+     * @param id       Id given by {@link #startGame}
+     * @param startFen Start position
+     * @param moves    Compact moves played so far
+     */
+    public record JournaledGame(long id, String startFen, short[] moves) {
+        public Position startPosition() {
+            return Position.fromFen(startFen);
+        }
+
+        /**
+         * Replays the moves, restoring the flags of each from the position it is played in.
+         *
+         * @throws IllegalArgumentException if a move doesn't fit its position
+         */
+        public int[] decodeMoves() {
+            Position position = startPosition();
+            int[] decoded = new int[moves.length];
+            for (int i = 0; i < decoded.length; i++) {
+                int move = Moves.fromCompact(position, Short.toUnsignedInt(moves[i]));
+                if (move == Moves.NONE) {
+                    throw new IllegalArgumentException("Bad move " + (i + 1) + " in journaled game " + id);
+                }
+                position.makeMove(move);
+                decoded[i] = move;
+            }
+            return decoded;
+        }
+    }
+
+    private static final class GameState {
+        final String startFen;
+        short[] moves = new short[64];
+        int count;
+
+        GameState(String startFen) {
+            this.startFen = startFen;
+        }
+
+        void add(short move) {
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, count * 2);
+            }
+            moves[count++] = move;
+        }
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    // Guarded by this
+    private final Map<Long, GameState> games;
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 20);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 20);
+    private int recordStart;
+    private long nextGameId;
+    private long appended;
+    private long durable;
+    private long fsyncs;
+    private IOException failure;
+    private boolean closed;
+
+    // Only touched by the flusher once it has started
+    private FileChannel segment;
+    private long segmentNumber;
+
+    private final long recoveredRecords;
+    private final long recoveryNanos;
+
+    private GameJournal(Path directory, long segmentBytes, Map<Long, GameState> games, long nextGameId,
+                        FileChannel segment, long segmentNumber, long recoveredRecords, long recoveryNanos) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.games = games;
+        this.nextGameId = nextGameId;
+        this.segment = segment;
+        this.segmentNumber = segmentNumber;
+        this.recoveredRecords = recoveredRecords;
+        this.recoveryNanos = recoveryNanos;
+        flusher = new Thread(this::flushForever, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".chess-app", "journal");
+    }
+
+    public static GameJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed, and recovers the games in progress.
+     *
+     * @param segmentBytes Size at which a segment is closed and a snapshot taken
+     * @throws IOException if a file is damaged anywhere but at the end of the last segment
+     */
+    public static GameJournal open(Path directory, long segmentBytes) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        List<Long> segments = numbers(directory, "journal-", ".log");
+        List<Long> snapshots = numbers(directory, "snapshot-", ".bin");
+
+        Map<Long, GameState> games = new HashMap<>();
+        long[] nextGameId = {1};
+        long first = segments.isEmpty() ? 0 : segments.get(0);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Map<Long, GameState> loaded = readSnapshot(snapshotPath(directory, snapshots.get(i)), nextGameId);
+            if (loaded != null) {
+                games = loaded;
+                first = snapshots.get(i);
+                break;
+            }
+        }
+
+        long records = 0;
+        long last = first;
+        for (long number : segments) {
+            if (number < first) {
+                continue;
+            }
+            boolean isLast = number == segments.get(segments.size() - 1);
+            records += replay(segmentPath(directory, number), number, isLast, games, nextGameId);
+            last = number;
+        }
+
+        FileChannel channel;
+        Path path = segmentPath(directory, last);
+        if (Files.exists(path)) {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } else {
+            channel = createSegment(path, last);
+        }
+        return new GameJournal(directory, segmentBytes, games, nextGameId[0], channel, last, records,
+                System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: GameJournal <empty directory> [--games n] [--threads n] [--durable] [--segment-mb n]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        int games = 100_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean durable = false;
+        long segmentBytes = DEFAULT_SEGMENT_BYTES;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--durable" -> durable = true;
+                case "--segment-mb" -> segmentBytes = Long.parseLong(args[++i]) << 20;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                if (files.findAny().isPresent()) {
+                    System.out.println("The benchmark needs an empty directory: " + directory);
+                    return;
+                }
+            }
+        }
+        benchmark(directory, games, threads, durable, segmentBytes);
+    }
+
+    /**
+     * Starts journaling a new game and returns its id.
+     */
+    public long startGame(String startFen) throws IOException {
+        byte[] fen = startFen.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            long id = nextGameId++;
+            ByteBuffer record = begin(START, id, 2 + fen.length);
+            record.putShort((short) fen.length).put(fen);
+            finish(record);
+            games.put(id, new GameState(startFen));
+            return id;
+        }
+    }
+
+    /**
+     * Records {@code move}, played in game {@code id}.
+     *
+     * @return The record's sequence number, for {@link #awaitDurable}
+     */
+    public synchronized long appendMove(long id, int move) throws IOException {
+        GameState game = games.get(id);
+        if (game == null) {
+            throw new IllegalArgumentException("No game " + id + " in progress");
+        }
+        short compact = (short) Moves.toCompact(move);
+        ByteBuffer record = begin(MOVE, id, 2);
+        record.putShort(compact);
+        finish(record);
+        game.add(compact);
+        return appended;
+    }
+
+    /**
+     * Records the end of game {@code id}; it is no longer restored after a restart.
+     *
+     * @param result PGN result, or {@code *} for an abandoned game
+     */
+    public synchronized long endGame(long id, String result) throws IOException {
+        if (games.remove(id) == null) {
+            throw new IllegalArgumentException("No game " + id + " in progress");
+        }
+        ByteBuffer record = begin(END, id, 1);
+        record.put((byte) Math.max(0, GameStore.RESULTS.indexOf(result)));
+        finish(record);
+        return appended;
+    }
+
+    /**
+     * Waits until every record up to sequence number {@code sequence} is on disk.
+     */
+    public synchronized void awaitDurable(long sequence) throws IOException {
+        try {
+            while (durable < sequence && failure == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the journal");
+        }
+        if (durable < sequence) {
+            throw new IOException("Journal write failed", failure);
+        }
+    }
+
+    /**
+     * Waits until everything appended so far is on disk.
+     */
+    public void sync() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Copies of the games in progress, oldest first; right after {@link #open}, the recovered games.
+     */
+    public synchronized List<JournaledGame> inProgress() {
+        List<JournaledGame> copies = new ArrayList<>(games.size());
+        games.forEach((id, game) -> copies.add(new JournaledGame(id, game.startFen, Arrays.copyOf(game.moves, game.count))));
+        copies.sort(Comparator.comparingLong(JournaledGame::id));
+        return copies;
+    }
+
+    public synchronized long fsyncs() {
+        return fsyncs;
+    }
+
+    /**
+     * Records replayed from the segments when the journal was opened, not counting the snapshot.
+     */
+    public long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    public long recoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * Writes everything appended so far and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw new IOException("Journal write failed", failure);
+            }
+        }
+    }
+
+    // Reserves room for a record in the pending batch; the caller holds the lock
+    private ByteBuffer begin(byte type, long id, int bodyLength) throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal write failed", failure);
+        }
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        int length = RECORD_HEADER_SIZE + 1 + Long.BYTES + bodyLength;
+        try {
+            // Let the flusher catch up rather than queue without limit
+            while (pending.position() > MAX_PENDING && failure == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the journal");
+        }
+        if (pending.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        recordStart = pending.position();
+        pending.putInt(length - RECORD_HEADER_SIZE).putInt(0).put(type).putLong(id);
+        return pending;
+    }
+
+    // Fills in the checksum of the record just written and wakes the flusher
+    private void finish(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.array(), recordStart + RECORD_HEADER_SIZE, record.position() - recordStart - RECORD_HEADER_SIZE);
+        record.putInt(recordStart + 4, (int) crc.getValue());
+        appended++;
+        notifyAll();
+    }
+
+    private void flushForever() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long sequence;
+                List<JournaledGame> snapshot = null;
+                synchronized (this) {
+                    while (pending.position() == 0 && !closed) {
+                        wait();
+                    }
+                    if (pending.position() == 0) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = writing;
+                    pending.clear();
+                    writing = batch;
+                    sequence = appended;
+                    if (segment.position() + batch.position() >= segmentBytes) {
+                        snapshot = inProgress(); // The state right after this batch
+                    }
+                    notifyAll();
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+                if (snapshot != null) {
+                    roll(snapshot);
+                }
+                synchronized (this) {
+                    durable = sequence;
+                    fsyncs++;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Starts the next segment, writes the snapshot it begins from, then deletes what the snapshot replaces
+    private void roll(List<JournaledGame> snapshot) throws IOException {
+        long next = segmentNumber + 1;
+        FileChannel nextSegment = createSegment(segmentPath(directory, next), next);
+        writeSnapshot(snapshotPath(directory, next), snapshot);
+        segment.close();
+        segment = nextSegment;
+        segmentNumber = next;
+        for (long number : numbers(directory, "journal-", ".log")) {
+            if (number < next) {
+                Files.deleteIfExists(segmentPath(directory, number));
+            }
+        }
+        for (long number : numbers(directory, "snapshot-", ".bin")) {
+            if (number < next) {
+                Files.deleteIfExists(snapshotPath(directory, number));
+            }
+        }
+    }
+
+    private void writeSnapshot(Path path, List<JournaledGame> snapshot) throws IOException {
+        long nextId;
+        synchronized (this) {
+            nextId = nextGameId;
+        }
+        int size = 4 + 8 + 8 + 4 + 4;
+        for (JournaledGame game : snapshot) {
+            size += 8 + 2 + game.startFen().length() * 3 + 4 + 2 * game.moves().length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(SNAPSHOT_MAGIC).putLong(segmentNumber + 1).putLong(nextId).putInt(snapshot.size());
+        for (JournaledGame game : snapshot) {
+            byte[] fen = game.startFen().getBytes(StandardCharsets.UTF_8);
+            out.putLong(game.id()).putShort((short) fen.length).put(fen).putInt(game.moves().length);
+            for (short move : game.moves()) {
+                out.putShort(move);
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(out.array(), 0, out.position());
+        out.putInt((int) checksum.getValue()).flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    // Returns null if the snapshot is incomplete or damaged, so an older one can be used
+    private static Map<Long, GameState> readSnapshot(Path path, long[] nextGameId) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (in.remaining() < 28 || in.getInt(0) != SNAPSHOT_MAGIC) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(in.array(), 0, in.limit() - 4);
+        if ((int) checksum.getValue() != in.getInt(in.limit() - 4)) {
+            return null;
+        }
+        in.position(12);
+        nextGameId[0] = in.getLong();
+        int count = in.getInt();
+        Map<Long, GameState> games = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            long id = in.getLong();
+            byte[] fen = new byte[Short.toUnsignedInt(in.getShort())];
+            in.get(fen);
+            GameState game = new GameState(new String(fen, StandardCharsets.UTF_8));
+            int moves = in.getInt();
+            game.moves = new short[Math.max(moves, 16)];
+            in.asShortBuffer().get(game.moves, 0, moves);
+            in.position(in.position() + 2 * moves);
+            game.count = moves;
+            games.put(id, game);
+        }
+        return games;
+    }
+
+    // Applies a segment's records to games, returning how many there were. A damaged record ends the last
+    // segment, which is cut back to the records before it.
+    private static long replay(Path path, long number, boolean isLast, Map<Long, GameState> games,
+                               long[] nextGameId) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.limit() < SEGMENT_HEADER_SIZE || in.getInt(0) != SEGMENT_MAGIC || in.getLong(4) != number) {
+                if (isLast && in.limit() < SEGMENT_HEADER_SIZE) {
+                    // Torn while being created; start it again
+                    channel.truncate(0);
+                    channel.write(segmentHeader(number), 0);
+                    channel.force(true);
+                    return 0;
+                }
+                throw new IOException("Damaged journal segment " + path);
+            }
+            CRC32 checksum = new CRC32();
+            long records = 0;
+            int at = SEGMENT_HEADER_SIZE;
+            while (at < in.limit()) {
+                int length = in.limit() - at >= RECORD_HEADER_SIZE ? in.getInt(at) : -1;
+                boolean whole = length >= 1 + Long.BYTES && length <= in.limit() - at - RECORD_HEADER_SIZE;
+                if (whole) {
+                    checksum.reset();
+                    checksum.update(in.slice(at + RECORD_HEADER_SIZE, length));
+                }
+                if (!whole || (int) checksum.getValue() != in.getInt(at + 4)) {
+                    if (!isLast) {
+                        throw new IOException("Damaged journal record in " + path + " at byte " + at);
+                    }
+                    channel.truncate(at);
+                    channel.force(true);
+                    break;
+                }
+                apply(in.slice(at + RECORD_HEADER_SIZE, length), games, nextGameId);
+                records++;
+                at += RECORD_HEADER_SIZE + length;
+            }
+            return records;
+        }
+    }
+
+    private static void apply(ByteBuffer record, Map<Long, GameState> games, long[] nextGameId) {
+        byte type = record.get();
+        long id = record.getLong();
+        nextGameId[0] = Math.max(nextGameId[0], id + 1);
+        switch (type) {
+            case START -> {
+                byte[] fen = new byte[Short.toUnsignedInt(record.getShort())];
+                record.get(fen);
+                games.put(id, new GameState(new String(fen, StandardCharsets.UTF_8)));
+            }
+            case MOVE -> {
+                GameState game = games.get(id);
+                if (game != null) {
+                    game.add(record.getShort());
+                }
+            }
+            case END -> games.remove(id);
+            default -> {
+                // Unknown record types are skipped so newer journals stay readable
+            }
+        }
+    }
+
+    private static FileChannel createSegment(Path path, long number) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.write(segmentHeader(number));
+        channel.force(true);
+        syncDirectory(path.getParent());
+        return channel;
+    }
+
+    private static ByteBuffer segmentHeader(long number) {
+        return ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(SEGMENT_MAGIC).putLong(number).flip();
+    }
+
+    // Makes a new or renamed file's directory entry durable; not every platform can open a directory
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static List<Long> numbers(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("journal-%08d.log", number));
+    }
+
+    private static Path snapshotPath(Path directory, long number) {
+        return directory.resolve(String.format("snapshot-%08d.bin", number));
+    }
+
+    private static void benchmark(Path directory, int games, int threads, boolean durable, long segmentBytes)
+            throws Exception {
+        // Random legal games to replay, so the timing is of the journal rather than move generation
+        SplittableRandom random = new SplittableRandom(1);
+        int[][] templates = new int[256][];
+        MoveList legal = new MoveList();
+        for (int i = 0; i < templates.length; i++) {
+            Position position = Position.startPosition();
+            int[] moves = new int[40 + random.nextInt(120)];
+            int count = 0;
+            for (; count < moves.length; count++) {
+                MoveGenerator.generateLegal(position, legal);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                moves[count] = legal.get(random.nextInt(legal.size()));
+                position.makeMove(moves[count]);
+            }
+            templates[i] = Arrays.copyOf(moves, count);
+        }
+
+        long start = System.nanoTime();
+        long records;
+        try (GameJournal journal = open(directory, segmentBytes)) {
+            List<Thread> workers = new ArrayList<>();
+            long[] counts = new long[threads];
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int game = worker; game < games; game += threads) {
+                            long id = journal.startGame(Perft.START_FEN);
+                            counts[worker]++;
+                            for (int move : templates[game % templates.length]) {
+                                long sequence = journal.appendMove(id, move);
+                                counts[worker]++;
+                                if (durable) {
+                                    journal.awaitDurable(sequence);
+                                }
+                            }
+                            // Leave each worker's last game unfinished, as if the program had stopped mid-game
+                            if (game + threads < games) {
+                                journal.endGame(id, "1/2-1/2");
+                                counts[worker]++;
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }, "journal-bench-" + t);
+                thread.start();
+                workers.add(thread);
+            }
+            for (Thread thread : workers) {
+                thread.join();
+            }
+            journal.sync();
+            records = Arrays.stream(counts).sum();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long fsyncs = journal.fsyncs();
+            System.out.printf("Journaled %d games, %d records in %.2f s on %d threads: %.0f records/s, %d fsyncs (%.0f records each)%n",
+                    games, records, seconds, threads, records / seconds, fsyncs, (double) records / Math.max(1, fsyncs));
+        }
+
+        try (GameJournal journal = open(directory, segmentBytes)) {
+            List<JournaledGame> restored = journal.inProgress();
+            long moves = 0;
+            for (JournaledGame game : restored) {
+                moves += game.decodeMoves().length;
+            }
+            System.out.printf("Recovered %d games in progress with %d moves in %.1f ms, replaying %d of %d records after the latest snapshot%n",
+                    restored.size(), moves, journal.recoveryNanos() / 1e6, journal.recoveredRecords(), records);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless server holding many games in memory, played over a small HTTP/JSON API:
+ * <ul>
+ *     <li>{@code POST /games} starts a game, from the FEN in the body if there is one</li>
+ *     <li>{@code GET /games/{id}} returns the game</li>
+ *     <li>{@code POST /games/{id}/moves} plays the UCI move in the body and returns the game; an illegal
+ *     move gets 400, and a move after the game has ended 409</li>
+ *     <li>{@code DELETE /games/{id}} drops the game</li>
+ *     <li>{@code POST /analysis} analyses the FENs in the body, one per line, with an {@link AnalysisService},
+ *     and returns the analyses as a JSON array, with null for each line that is not a valid position</li>
+ *     <li>{@code GET /stats} returns the number of games, the move-apply latency percentiles and the analysis
+ *     cache statistics</li>
+ * </ul>
+ * Games live in a concurrent map, and each {@link GameSession} serialises its own moves, so there is no
+ * lock shared between games. Requests are handled on a fixed pool of threads. A request that fails
+ * unexpectedly gets 500 with a JSON error.
+ * <p>
+ * Usage: {@code GameServer [--port n] [--threads n]}; see {@link ServerLoadTest} to measure it.
+ */
+public final class GameServer implements Closeable {
+    private static final String JSON = "application/json";
+    private static final int ANALYSIS_CACHE_SIZE = 100_000;
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final AnalysisService analysis = new AnalysisService(ANALYSIS_CACHE_SIZE);
+
+    private GameServer(HttpServer http, ExecutorService executor) {
+        this.http = http;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts serving on the loopback interface.
+     *
+     * @param port    Port to listen on, or 0 for any free one (see {@link #port()})
+     * @param threads Request handler threads
+     */
+    public static GameServer start(int port, int threads) throws IOException {
+        // Responses go out as two writes, headers then body; without TCP_NODELAY the body waits for the
+        // client's delayed ACK, adding about 40 ms to every request. Only read before the first server starts.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        GameServer server = new GameServer(http, executor);
+        http.createContext("/", server::handle);
+        http.setExecutor(executor);
+        http.start();
+        return server;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                default -> {
+                    System.out.println("Usage: GameServer [--port n] [--threads n]");
+                    return;
+                }
+            }
+        }
+        GameServer server = start(port, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Game server listening on http://localhost:" + server.port() + "/games with " + threads + " threads");
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Time taken to apply each move, from taking the game's lock to its new status.
+     */
+    public LatencyHistogram moveLatency() {
+        return moveLatency;
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (path.length == 2 && path[1].equals("stats") && method.equals("GET")) {
+                send(exchange, 200, stats());
+            } else if (path.length == 2 && path[1].equals("analysis") && method.equals("POST")) {
+                analyze(exchange);
+            } else if (path.length == 2 && path[1].equals("games") && method.equals("POST")) {
+                createGame(exchange);
+            } else if (path.length >= 3 && path.length <= 4 && path[1].equals("games")) {
+                GameSession session = session(path[2]);
+                if (session == null) {
+                    send(exchange, 404, error("No such game: " + path[2]));
+                } else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+                    playMove(exchange, session);
+                } else if (path.length == 3 && method.equals("GET")) {
+                    send(exchange, 200, session.toJson());
+                } else if (path.length == 3 && method.equals("DELETE")) {
+                    sessions.remove(session.id());
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    send(exchange, 405, error("Unsupported method " + method));
+                }
+            } else {
+                send(exchange, 404, error("Unknown path " + exchange.getRequestURI().getPath()));
+            }
+        } catch (RuntimeException e) {
+            Log.error("Game server request failed: " + e);
+            if (exchange.getResponseCode() < 0) {
+                send(exchange, 500, error("Internal error: " + e));
+            }
+        }
+    }
+
+    private void createGame(HttpExchange exchange) throws IOException {
+        String fen = body(exchange);
+        GameSession session;
+        try {
+            session = new GameSession(nextId.getAndIncrement(), fen.isEmpty() ? null : fen);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error("Bad FEN: " + e.getMessage()));
+            return;
+        }
+        sessions.put(session.id(), session);
+        send(exchange, 201, session.toJson());
+    }
+
+    private void playMove(HttpExchange exchange, GameSession session) throws IOException {
+        String move = body(exchange);
+        long start = System.nanoTime();
+        GameSession.Outcome outcome = session.play(move);
+        moveLatency.recordNanos(System.nanoTime() - start);
+        switch (outcome) {
+            case PLAYED -> send(exchange, 200, session.toJson());
+            case ILLEGAL -> send(exchange, 400, error("Illegal move: " + move));
+            case GAME_OVER -> send(exchange, 409, error("The game is over"));
+        }
+    }
+
+    private void analyze(HttpExchange exchange) throws IOException {
+        List<String> fens = new ArrayList<>();
+        for (String line : body(exchange).split("\n")) {
+            if (!line.isBlank()) {
+                fens.add(line.trim());
+            }
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (AnalysisService.Analysis result : analysis.analyzeAll(fens)) {
+            json.append(json.length() == 1 ? "" : ",").append(result == null ? "null" : result.toJson());
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private GameSession session(String id) {
+        try {
+            return sessions.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String stats() {
+        LruCache<String, AnalysisService.Analysis> cache = analysis.cache();
+        return String.format(Locale.ROOT, "{\"games\":%d,\"moves\":%d,\"moveMeanMicros\":%.1f,\"moveP50Micros\":%.1f,\"moveP99Micros\":%.1f,"
+                        + "\"analysisCache\":{\"size\":%d,\"capacity\":%d,\"hitRate\":%.4f,\"hits\":%d,\"misses\":%d,\"evictions\":%d,\"estimatedBytes\":%d}}",
+                sessions.size(), moveLatency.count(), moveLatency.meanNanos() / 1e3,
+                moveLatency.percentileNanos(50) / 1e3, moveLatency.percentileNanos(99) / 1e3,
+                cache.size(), cache.capacity(), cache.hitRate(), cache.hits(), cache.misses(), cache.evictions(),
+                cache.estimatedBytes());
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ * One game held by a {@link GameServer}. Every method synchronises on the session, so moves sent to one
+ * game are applied one at a time in arrival order while other games carry on in parallel. A move is tried
+ * out on spare copies of the game's state, which are swapped in only once it has been applied in full, so a
+ * failure part way leaves the game as it was.
+ */
+final class GameSession {
+    enum Outcome { PLAYED, ILLEGAL, GAME_OVER }
+
+    private final long id;
+    private final String startFen;
+    private Position position;
+    private MoveList legalMoves = new MoveList();
+    private GameStateTracker tracker = new GameStateTracker();
+    private Position nextPosition = new Position();
+    private MoveList nextLegalMoves = new MoveList();
+    private GameStateTracker nextTracker = new GameStateTracker();
+    private int[] moves = new int[16];
+    private int moveCount;
+    private GameStateTracker.Status status;
+
+    /**
+     * @throws IllegalArgumentException if {@code fen} is not a valid position
+     */
+    GameSession(long id, String fen) {
+        this.id = id;
+        this.position = fen == null ? Position.startPosition() : Position.fromFen(fen);
+        this.startFen = position.toFen();
+        tracker.reset(position);
+        MoveGenerator.generateLegal(position, legalMoves);
+        status = tracker.status(position, !legalMoves.isEmpty());
+    }
+
+    long id() {
+        return id;
+    }
+
+    /**
+     * Plays {@code uci} (e.g. {@code e7e8q}) if it is legal and the game is still going.
+     */
+    synchronized Outcome play(String uci) {
+        if (status.isGameOver()) {
+            return Outcome.GAME_OVER;
+        }
+        int move = Uci.parseMove(uci, legalMoves);
+        if (move == Moves.NONE) {
+            return Outcome.ILLEGAL;
+        }
+        nextPosition.copyFrom(position);
+        nextPosition.makeMove(move);
+        nextTracker.copyFrom(tracker);
+        nextTracker.record(nextPosition);
+        MoveGenerator.generateLegal(nextPosition, nextLegalMoves);
+        GameStateTracker.Status nextStatus = nextTracker.status(nextPosition, !nextLegalMoves.isEmpty());
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+
+        Position previousPosition = position;
+        position = nextPosition;
+        nextPosition = previousPosition;
+        MoveList previousLegalMoves = legalMoves;
+        legalMoves = nextLegalMoves;
+        nextLegalMoves = previousLegalMoves;
+        GameStateTracker previousTracker = tracker;
+        tracker = nextTracker;
+        nextTracker = previousTracker;
+        status = nextStatus;
+        moves[moveCount++] = move;
+        return Outcome.PLAYED;
+    }
+
+    /**
+     * The game as a JSON object: id, start and current FEN, status, result, and the moves played and
+     * legal now in UCI notation.
+     */
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder(256 + 6 * (moveCount + legalMoves.size()));
+        json.append("{\"id\":").append(id)
+                .append(",\"startFen\":\"").append(startFen)
+                .append("\",\"fen\":\"").append(position.toFen())
+                .append("\",\"status\":\"").append(status)
+                .append("\",\"result\":\"").append(status.result(position.sideToMove()))
+                .append("\",\"moves\":[");
+        for (int i = 0; i < moveCount; i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(Moves.toUci(moves[i])).append('"');
+        }
+        json.append("],\"legalMoves\":[");
+        for (int i = 0; i < legalMoves.size(); i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(Moves.toUci(legalMoves.get(i))).append('"');
+        }
+        return json.append("]}").toString();
+    }
+}
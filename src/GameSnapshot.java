@@ -0,0 +1,78 @@
+import java.util.List;
+
+/**
+ * Immutable picture of the game at one moment, published by {@link GameController} to the UI. The arrays
+ * are private copies and must not be modified.
+ *
+ * @param board            Piece code per square (a1 = 0), or {@link Position#EMPTY}
+ * @param sideToMove       {@link Position#WHITE} or {@link Position#BLACK}
+ * @param castlingRights   Castling right bits, as in {@link Position#castlingRights()}
+ * @param inCheck          Whether the side to move is in check
+ * @param legalMoves       Legal moves for the side to move
+ * @param lastMove         The move that led here, or {@link Moves#NONE}
+ * @param moves            Every move played from the start position
+ * @param status           Whether the game is over, and how
+ * @param startFen         Position the game started from
+ * @param fen              This position
+ * @param computerThinking Whether the computer is searching, so the player's moves are not accepted
+ * @param bookMoves        Opening book moves for this position, heaviest first; empty without a book
+ */
+public record GameSnapshot(int[] board, int sideToMove, int castlingRights, boolean inCheck, int[] legalMoves,
+                           int lastMove, int[] moves, GameStateTracker.Status status, String startFen, String fen,
+                           boolean computerThinking, List<PolyglotBook.BookMove> bookMoves) {
+
+    static GameSnapshot of(Position position, MoveList legalMoves, int[] moves, GameStateTracker.Status status,
+                           String startFen, boolean computerThinking, List<PolyglotBook.BookMove> bookMoves) {
+        int[] board = new int[64];
+        for (int square = 0; square < 64; square++) {
+            board[square] = position.pieceAt(square);
+        }
+        int[] legal = new int[legalMoves.size()];
+        for (int i = 0; i < legal.length; i++) {
+            legal[i] = legalMoves.get(i);
+        }
+        return new GameSnapshot(board, position.sideToMove(), position.castlingRights(),
+                position.isInCheck(position.sideToMove()), legal,
+                moves.length == 0 ? Moves.NONE : moves[moves.length - 1], moves, status, startFen, position.toFen(),
+                computerThinking, List.copyOf(bookMoves));
+    }
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public boolean isWhiteToMove() {
+        return sideToMove == Position.WHITE;
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && legalMoves.length == 0;
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && legalMoves.length == 0;
+    }
+
+    /**
+     * Returns the legal move from {@code from} to {@code to}, preferring a queen promotion, or {@link Moves#NONE}.
+     */
+    public int find(int from, int to) {
+        int found = Moves.NONE;
+        for (int move : legalMoves) {
+            if (Moves.from(move) == from && Moves.to(move) == to) {
+                if (Moves.promotion(move) == 0 || Moves.promotion(move) == Position.QUEEN) {
+                    return move;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns a fresh, mutable position for this snapshot.
+     */
+    public Position position() {
+        return Position.fromFen(fen);
+    }
+}
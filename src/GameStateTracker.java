@@ -0,0 +1,200 @@
+import java.util.Arrays;
+
+/**
+ * Follows a game move by move and decides when it is over: checkmate, stalemate, threefold repetition,
+ * the fifty-move rule or a dead position with insufficient material. With an {@link EndgameTablebase}
+ * attached, positions it covers are also decided at once as won, drawn or lost.
+ * <p>
+ * Every check is constant time per move. Repetitions are counted in a small open-addressing table of
+ * position hashes. After a capture or pawn move no earlier position can recur, so the table is emptied
+ * whenever the halfmove clock resets; each entry is cleared once, keeping that amortised constant too.
+ */
+public final class GameStateTracker {
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+    private static final long DARK_SQUARES = ~LIGHT_SQUARES;
+
+    public enum Status {
+        ONGOING, CHECKMATE, STALEMATE, THREEFOLD_REPETITION, FIFTY_MOVE_RULE, INSUFFICIENT_MATERIAL,
+        TABLEBASE_WIN, TABLEBASE_LOSS, TABLEBASE_DRAW;
+
+        public boolean isGameOver() {
+            return this != ONGOING;
+        }
+
+        public boolean isDraw() {
+            return this != ONGOING && this != CHECKMATE && this != TABLEBASE_WIN && this != TABLEBASE_LOSS;
+        }
+
+        /**
+         * The PGN result when the game stands like this with {@code sideToMove} to play.
+         */
+        public String result(int sideToMove) {
+            if (!isGameOver()) {
+                return "*";
+            }
+            if (isDraw()) {
+                return "1/2-1/2";
+            }
+            boolean whiteWins = (this == TABLEBASE_WIN) == (sideToMove == Position.WHITE);
+            return whiteWins ? "1-0" : "0-1";
+        }
+
+        public String description() {
+            return switch (this) {
+                case ONGOING -> "Game in progress.";
+                case CHECKMATE -> "Checkmate! Game over.";
+                case STALEMATE -> "Stalemate. The game is a draw.";
+                case THREEFOLD_REPETITION -> "Threefold repetition. The game is a draw.";
+                case FIFTY_MOVE_RULE -> "Fifty moves without a capture or pawn move. The game is a draw.";
+                case INSUFFICIENT_MATERIAL -> "Insufficient material. The game is a draw.";
+                case TABLEBASE_WIN -> "The side to move has a forced mate. Game over.";
+                case TABLEBASE_LOSS -> "The side to move cannot avoid mate. Game over.";
+                case TABLEBASE_DRAW -> "Neither side can force mate. The game is a draw.";
+            };
+        }
+    }
+
+    private long[] keys = new long[256];
+    private int[] counts = new int[256];
+    private int[] usedSlots = new int[128];
+    private int used;
+    private int repetitions;
+    private EndgameTablebase tablebase;
+
+    /**
+     * Sets the tablebase used to end games it covers, or null to play them out.
+     */
+    public void setTablebase(EndgameTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Starts tracking from {@code position}, forgetting any earlier history.
+     */
+    public void reset(Position position) {
+        clear();
+        repetitions = add(position.hash());
+    }
+
+    /**
+     * Makes this tracker a copy of {@code other}, so a move can be tried out on the copy first.
+     */
+    public void copyFrom(GameStateTracker other) {
+        if (keys.length != other.keys.length) {
+            keys = new long[other.keys.length];
+            counts = new int[other.counts.length];
+            usedSlots = new int[other.usedSlots.length];
+        }
+        System.arraycopy(other.keys, 0, keys, 0, keys.length);
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+        System.arraycopy(other.usedSlots, 0, usedSlots, 0, other.used);
+        used = other.used;
+        repetitions = other.repetitions;
+        tablebase = other.tablebase;
+    }
+
+    /**
+     * Records the position reached after a move.
+     */
+    public void record(Position position) {
+        if (position.halfmoveClock() == 0) {
+            clear(); // Irreversible move: nothing before it can repeat
+        }
+        repetitions = add(position.hash());
+    }
+
+    /**
+     * How many times the current position has occurred, counting this time.
+     */
+    public int repetitions() {
+        return repetitions;
+    }
+
+    /**
+     * Returns how the game stands in {@code position}, the last position recorded.
+     *
+     * @param hasLegalMoves Whether the side to move has any legal move
+     */
+    public Status status(Position position, boolean hasLegalMoves) {
+        if (!hasLegalMoves) {
+            return position.isInCheck(position.sideToMove()) ? Status.CHECKMATE : Status.STALEMATE;
+        }
+        if (isInsufficientMaterial(position)) {
+            return Status.INSUFFICIENT_MATERIAL;
+        }
+        if (repetitions >= 3) {
+            return Status.THREEFOLD_REPETITION;
+        }
+        if (position.halfmoveClock() >= 100) {
+            return Status.FIFTY_MOVE_RULE;
+        }
+        EndgameTablebase.Probe probe = tablebase == null ? null : tablebase.probe(position);
+        if (probe != null) {
+            return switch (probe.wdl()) {
+                case WIN -> Status.TABLEBASE_WIN;
+                case LOSS -> Status.TABLEBASE_LOSS;
+                case DRAW -> Status.TABLEBASE_DRAW;
+            };
+        }
+        return Status.ONGOING;
+    }
+
+    /**
+     * Whether neither side can possibly checkmate: bare kings, a single minor piece, or only bishops that
+     * all stand on squares of one colour.
+     */
+    public static boolean isInsufficientMaterial(Position position) {
+        long heavy = 0L;
+        long knights = 0L;
+        long bishops = 0L;
+        for (int colour = Position.WHITE; colour <= Position.BLACK; colour++) {
+            heavy |= position.pieces(colour, Position.PAWN) | position.pieces(colour, Position.ROOK) | position.pieces(colour, Position.QUEEN);
+            knights |= position.pieces(colour, Position.KNIGHT);
+            bishops |= position.pieces(colour, Position.BISHOP);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & DARK_SQUARES) == 0);
+    }
+
+    private int add(long key) {
+        if (used * 2 >= keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            usedSlots[used++] = slot;
+        }
+        return ++counts[slot];
+    }
+
+    private void clear() {
+        for (int i = 0; i < used; i++) {
+            counts[usedSlots[i]] = 0;
+        }
+        used = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldSlots = Arrays.copyOf(usedSlots, used);
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        usedSlots = new int[keys.length / 2];
+        used = 0;
+        for (int slot : oldSlots) {
+            add(oldKeys[slot]);
+            counts[usedSlots[used - 1]] = oldCounts[slot];
+        }
+    }
+}
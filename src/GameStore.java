@@ -0,0 +1,189 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of a compact binary game archive, written by {@link GameStoreWriter}. Much faster to read than
+ * PGN: moves are stored as 16-bit from/to/promotion values, and an offset index finds any game in
+ * constant time.
+ * <p>
+ * Layout, big-endian: a header (magic, version, game count, index offset), then one record per game
+ * (result, FEN length, tag length, move count, the FEN if the game doesn't start from the standard
+ * position, the tags as NUL-separated UTF-8, and the moves), then the index of record offsets. The file is
+ * memory-mapped read-only in overlapping segments, so files above 2 GB work and a record never straddles a
+ * mapping. Game moves are views of the mapping, not copies. Safe to share between threads.
+ * <p>
+ * Usage: {@code GameStore <file.games> [--decode]} scans the archive and reports games and moves per
+ * second; {@code GameStore <file.games> --game n} prints game n (counted from 1) as PGN.
+ */
+public final class GameStore implements Closeable {
+    static final int MAGIC = 0x43475331; // "CGS1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int RECORD_HEADER_SIZE = 6;
+    static final List<String> RESULTS = List.of("*", "1-0", "0-1", "1/2-1/2");
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    // Longer than any record (255 bytes of FEN, 64K of tags and 64K moves), so each record fits one segment
+    private static final long SEGMENT_OVERLAP = 1L << 19;
+
+    /**
+     * One stored game. The moves are a view of the mapped file, valid while the store is open.
+     *
+     * @param number   Zero-based position of the game in the file
+     * @param result   PGN result, e.g. {@code 1-0}
+     * @param startFen Start position, or null for the standard one
+     * @param tagBlock The tags as NUL-separated UTF-8 names and values; see {@link #tags()}
+     * @param moves    Compact moves (see {@link Moves#toCompact}); see {@link #decodeMoves()}
+     */
+    public record StoredGame(long number, String result, String startFen, ByteBuffer tagBlock, ShortBuffer moves) {
+        public Map<String, String> tags() {
+            ByteBuffer block = tagBlock.duplicate();
+            byte[] bytes = new byte[block.remaining()];
+            block.get(bytes);
+            String[] parts = new String(bytes, StandardCharsets.UTF_8).split("\0", -1);
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < parts.length; i += 2) {
+                tags.put(parts[i], parts[i + 1]);
+            }
+            return tags;
+        }
+
+        public Position startPosition() {
+            return startFen == null ? Position.startPosition() : Position.fromFen(startFen);
+        }
+
+        /**
+         * Replays the moves, restoring the flags of each from the position it is played in.
+         *
+         * @throws IllegalArgumentException if a move doesn't fit its position
+         */
+        public int[] decodeMoves() {
+            Position position = startPosition();
+            int[] decoded = new int[moves.remaining()];
+            for (int i = 0; i < decoded.length; i++) {
+                int move = Moves.fromCompact(position, Short.toUnsignedInt(moves.get(moves.position() + i)));
+                if (move == Moves.NONE) {
+                    throw new IllegalArgumentException("Bad move " + (i + 1) + " in game " + (number + 1));
+                }
+                position.makeMove(move);
+                decoded[i] = move;
+            }
+            return decoded;
+        }
+
+        public PgnGame toPgn() {
+            PgnGame game = PgnWriter.toGame(startPosition(), decodeMoves(), result);
+            game.tags().putAll(tags());
+            return game;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer[] segments;
+    private final long count;
+    private final long indexOffset;
+
+    private GameStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            throw new IOException("Not a game store: only " + size + " bytes");
+        }
+        segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE + SEGMENT_OVERLAP, size - start));
+        }
+        ByteBuffer header = segments[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a game store, or an unsupported version");
+        }
+        count = header.getLong(8);
+        indexOffset = header.getLong(16);
+        if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + count * Long.BYTES != size) {
+            throw new IOException("Game store is damaged or was not closed after writing");
+        }
+    }
+
+    public static GameStore open(Path path) throws IOException {
+        return new GameStore(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: GameStore <file.games> [--decode | --game n]");
+            return;
+        }
+        try (GameStore store = open(Path.of(args[0]))) {
+            if (args.length > 2 && args[1].equals("--game")) {
+                Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+                PgnWriter.write(store.get(Long.parseLong(args[2]) - 1).toPgn(), out);
+                out.flush();
+                return;
+            }
+            boolean decode = args.length > 1 && args[1].equals("--decode");
+            long start = System.nanoTime();
+            long moves = 0;
+            for (long i = 0; i < store.size(); i++) {
+                StoredGame game = store.get(i);
+                moves += decode ? game.decodeMoves().length : game.moves().remaining();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d games, %d moves in %.2f s: %.0f games/s, %.0f moves/s, %.0f MB/s%n",
+                    store.size(), moves, seconds, store.size() / seconds, moves / seconds,
+                    Files.size(Path.of(args[0])) / seconds / 1e6);
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns game {@code number} (zero-based), found through the index in constant time.
+     */
+    public StoredGame get(long number) {
+        if (number < 0 || number >= count) {
+            throw new IndexOutOfBoundsException("Game " + number + " of " + count);
+        }
+        long offset = getLong(indexOffset + number * Long.BYTES);
+        ByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+        int at = (int) (offset % SEGMENT_SIZE);
+        String result = RESULTS.get(segment.get(at) & 3);
+        int fenLength = Byte.toUnsignedInt(segment.get(at + 1));
+        int tagLength = Short.toUnsignedInt(segment.getShort(at + 2));
+        int moveCount = Short.toUnsignedInt(segment.getShort(at + 4));
+        at += RECORD_HEADER_SIZE;
+        String startFen = null;
+        if (fenLength > 0) {
+            byte[] fen = new byte[fenLength];
+            segment.get(at, fen);
+            startFen = new String(fen, StandardCharsets.US_ASCII);
+            at += fenLength;
+        }
+        ByteBuffer tags = segment.slice(at, tagLength);
+        ShortBuffer moves = segment.slice(at + tagLength, 2 * moveCount).asShortBuffer();
+        return new StoredGame(number, result, startFen, tags, moves);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset / SEGMENT_SIZE)].getLong((int) (offset % SEGMENT_SIZE));
+    }
+}
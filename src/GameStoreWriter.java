@@ -0,0 +1,164 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes games in the binary {@link GameStore} format: each game is appended as one record, and the offset
+ * index and file header are written on {@link #close()}. Not thread-safe.
+ * <p>
+ * Usage: {@code GameStoreWriter <out.games> <file.pgn>...} converts PGN archives.
+ */
+public final class GameStoreWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private long position = GameStore.HEADER_SIZE; // End of the last appended record
+    private long flushed = GameStore.HEADER_SIZE; // End of the data handed to the channel
+    private long[] offsets = new long[1024];
+    private long count;
+
+    private GameStoreWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static GameStoreWriter create(Path path) throws IOException {
+        return new GameStoreWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GameStoreWriter <out.games> <file.pgn>...");
+            return;
+        }
+        long start = System.nanoTime();
+        long skipped = 0;
+        long pgnBytes = 0;
+        Path output = Path.of(args[0]);
+        GameStoreWriter writer = create(output);
+        try (writer) {
+            for (int i = 1; i < args.length; i++) {
+                Path input = Path.of(args[i]);
+                pgnBytes += Files.size(input);
+                try (PgnReader reader = PgnReader.open(input)) {
+                    for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                        try {
+                            writer.append(game);
+                        } catch (IllegalArgumentException e) {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+        }
+        // Closing wrote the index and header, so the sizes are final
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games (%d skipped) in %.1f s, %.0f games/s; %d bytes of PGN became %d%n",
+                writer.count, skipped, seconds, writer.count / seconds, pgnBytes, writer.flushed);
+    }
+
+    /**
+     * Appends a game read from PGN.
+     *
+     * @throws IllegalArgumentException if the game has an illegal move or does not fit the format
+     */
+    public void append(PgnGame game) throws IOException {
+        append(game.tags(), game.startPosition(), game.decodeMoves(), game.result());
+    }
+
+    /**
+     * Appends a game.
+     *
+     * @param tags  PGN tags, stored as they are
+     * @param moves Legal packed moves from {@code start}
+     * @throws IllegalArgumentException if the game has more than 65535 moves or oversized tags
+     */
+    public void append(Map<String, String> tags, Position start, int[] moves, String result) throws IOException {
+        String fen = start.toFen();
+        byte[] fenBytes = fen.equals(Perft.START_FEN) ? new byte[0] : fen.getBytes(StandardCharsets.US_ASCII);
+        StringBuilder tagText = new StringBuilder();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            tagText.append(tag.getKey()).append('\0').append(tag.getValue()).append('\0');
+        }
+        byte[] tagBytes = tagText.toString().getBytes(StandardCharsets.UTF_8);
+        if (moves.length > 0xFFFF || tagBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Game too long to store: " + moves.length + " moves, " + tagBytes.length + " bytes of tags");
+        }
+        int resultCode = GameStore.RESULTS.indexOf(result);
+
+        int size = GameStore.RECORD_HEADER_SIZE + fenBytes.length + tagBytes.length + 2 * moves.length;
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        ByteBuffer out = size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size);
+        out.put((byte) Math.max(resultCode, 0));
+        out.put((byte) fenBytes.length);
+        out.putShort((short) tagBytes.length);
+        out.putShort((short) moves.length);
+        out.put(fenBytes);
+        out.put(tagBytes);
+        for (int move : moves) {
+            out.putShort((short) Moves.toCompact(move));
+        }
+        if (out != buffer) {
+            out.flip();
+            write(out);
+        }
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[(int) count++] = position;
+        position += size;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Writes the index and header. The file is only readable once this has been called.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+            long indexOffset = position;
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush();
+                }
+                buffer.putLong(offsets[i]);
+            }
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(GameStore.HEADER_SIZE);
+            header.putInt(GameStore.MAGIC).putInt(GameStore.VERSION).putLong(count).putLong(indexOffset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position()); // The header goes before the records
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            flushed += channel.write(data, flushed);
+        }
+    }
+}
@@ -4,13 +4,14 @@
 public record Knight(boolean isWhite) implements Piece {
 
     @Override
-    public boolean isValidMove(int currentX, int currentY, int newX, int newY, Piece[][] board, ChessBoard chessBoard) {
-        int xDistance = Math.abs(newX - currentX);
-        int yDistance = Math.abs(newY - currentY);
-
-        boolean isDestinationOccupiedSameColor = board[newX][newY] != null && board[newX][newY].isWhite() == this.isWhite;
+    public boolean isValidMove(Position position, int from, int to) {
+        long targets = Attacks.knight(from) & ~position.occupancy(Position.colour(isWhite));
+        return (targets & (1L << to)) != 0;
+    }
 
-        return !isDestinationOccupiedSameColor && ((xDistance == 2 && yDistance == 1) || (xDistance == 1 && yDistance == 2));
+    @Override
+    public int type() {
+        return Position.KNIGHT;
     }
 
     @Override
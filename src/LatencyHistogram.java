@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations for percentile reporting. Each power of two is split into 16 linear
+ * buckets, so a reported percentile is within about 6% of the true value, and recording is one atomic
+ * increment. Safe to use from any number of threads.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void recordNanos(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        total.increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public double meanNanos() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Returns the duration below which {@code percentile} percent of the recordings fall, e.g. 99 for p99,
+     * or 0 if nothing was recorded. Recordings made while this runs may or may not be counted.
+     */
+    public long percentileNanos(double percentile) {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+    }
+
+    /**
+     * Summary in microseconds, e.g. {@code n=1000 mean=12.0us p50=10.0us p99=40.0us}.
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus", count(), meanNanos() / 1e3,
+                percentileNanos(50) / 1e3, percentileNanos(99) / 1e3, percentileNanos(99.9) / 1e3);
+    }
+
+    // Values below 16 get a bucket each; above that, the top four bits after the leading one pick the bucket
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Budget for one search. A zero field means that dimension is unlimited, and a search with every field
+ * zero runs until {@link SearchEngine#stop()} is called.
+ *
+ * @param depth          Maximum iterative-deepening depth in plies
+ * @param nodes          Hard cap on nodes searched
+ * @param moveTimeMillis Hard cap on wall-clock time
+ */
+public record Limits(int depth, long nodes, long moveTimeMillis) {
+
+    public static Limits depth(int depth) {
+        return new Limits(depth, 0, 0);
+    }
+
+    public static Limits nodes(long nodes) {
+        return new Limits(0, nodes, 0);
+    }
+
+    public static Limits moveTime(long moveTimeMillis) {
+        return new Limits(0, 0, moveTimeMillis);
+    }
+
+    public static Limits infinite() {
+        return new Limits(0, 0, 0);
+    }
+
+    /**
+     * Budget for one move played on a clock: an even share of the remaining time plus most of the
+     * increment, less a margin for overhead.
+     *
+     * @param movesToGo Moves left until the next time control, or 0 if the rest of the game must fit
+     */
+    public static Limits fromClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long share = remainingMillis / (movesToGo > 0 ? movesToGo + 1 : 30) + incrementMillis * 3 / 4;
+        return moveTime(Math.max(1, Math.min(share, remainingMillis - 50)));
+    }
+}
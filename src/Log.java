@@ -0,0 +1,97 @@
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Application log for the GUI and the game controller. Messages below the current level cost a level
+ * check (and, for the {@link Supplier} forms, nothing is formatted). Enabled messages are queued and written
+ * by a background thread, so the event dispatch thread never waits for the console; anything still queued
+ * is written before the JVM exits. Warnings and errors go to standard error, the rest to standard output.
+ * <p>
+ * The level starts at {@code -Dchess.log=off|error|warn|info|debug}, {@code info} by default.
+ */
+public final class Log {
+    public enum Level { OFF, ERROR, WARN, INFO, DEBUG }
+
+    private record Entry(Level level, String message) {
+    }
+
+    private static final BlockingQueue<Entry> QUEUE = new LinkedBlockingQueue<>();
+    private static volatile Level level = Level.valueOf(System.getProperty("chess.log", "info").toUpperCase(Locale.ROOT));
+
+    static {
+        Thread writer = new Thread(Log::writeForever, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static void setLevel(Level level) {
+        Log.level = level;
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) <= 0 && messageLevel != Level.OFF;
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            QUEUE.add(new Entry(Level.INFO, message.get()));
+        }
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            QUEUE.add(new Entry(Level.DEBUG, message.get()));
+        }
+    }
+
+    private static void log(Level messageLevel, String message) {
+        if (isEnabled(messageLevel)) {
+            QUEUE.add(new Entry(messageLevel, message));
+        }
+    }
+
+    private static void writeForever() {
+        try {
+            while (true) {
+                write(QUEUE.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void drain() {
+        for (Entry entry = QUEUE.poll(); entry != null; entry = QUEUE.poll()) {
+            write(entry);
+        }
+        System.out.flush();
+    }
+
+    private static void write(Entry entry) {
+        PrintStream out = entry.level().compareTo(Level.WARN) <= 0 ? System.err : System.out;
+        out.println(entry.message());
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Size-bounded cache that evicts the least recently used entry, safe to share between threads. Keys are
+ * spread over independently locked segments, each an access-ordered {@link LinkedHashMap}, so threads
+ * only contend when they touch the same segment; eviction is LRU within a segment, which approximates
+ * LRU overall. Values are computed outside the lock, so two threads missing the same key at once may
+ * both compute it.
+ * <p>
+ * Hits, misses and evictions are counted, and a caller-supplied weigher estimates each entry's size in
+ * bytes to report the cache's memory footprint.
+ */
+public final class LruCache<K, V> {
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final List<Segment<K, V>> segments;
+    private final ToIntFunction<V> weigher;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder weight = new LongAdder();
+
+    /**
+     * @param capacity Most entries held at once
+     * @param weigher  Estimated bytes taken by an entry, including its key
+     */
+    public LruCache(int capacity, ToIntFunction<V> weigher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && capacity / (count * 2) >= MIN_SEGMENT_CAPACITY) {
+            count *= 2;
+        }
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder so the segments add up to exactly the capacity
+            segments.add(new Segment<>(capacity / count + (i < capacity % count ? 1 : 0)));
+        }
+    }
+
+    /**
+     * Returns the cached value for {@code key}, or null, counting a hit or a miss.
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.entries.get(key);
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V previous = segment.entries.put(key, value);
+            if (previous != null) {
+                weight.add(-weigher.applyAsInt(previous));
+            }
+            weight.add(weigher.applyAsInt(value));
+            if (segment.entries.size() > segment.capacity) {
+                Map.Entry<K, V> eldest = segment.entries.entrySet().iterator().next();
+                segment.entries.remove(eldest.getKey());
+                weight.add(-weigher.applyAsInt(eldest.getValue()));
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value for {@code key}, computing and caching it first on a miss.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        V value = get(key);
+        if (value == null) {
+            value = compute.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (V value : segment.entries.values()) {
+                    weight.add(-weigher.applyAsInt(value));
+                }
+                segment.entries.clear();
+            }
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Estimated bytes held by the cached entries, as reported by the weigher.
+     */
+    public long estimatedBytes() {
+        return weight.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d entries, hit rate %.1f%% (%d hits, %d misses), %d evictions, about %.1f MB",
+                size(), capacity, hitRate() * 100, hits(), misses(), evictions(), estimatedBytes() / 1e6);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments.get((hash * 0x9E3779B9 >>> 16) & (segments.size() - 1));
+    }
+
+    private static final class Segment<K, V> {
+        final int capacity;
+        final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true); // In access order
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+}
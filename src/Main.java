@@ -0,0 +1,25 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Entry point of the jar. {@code --uci} and {@code --perft} run headless and never load AWT or Swing;
+ * anything else opens the board.
+ * <p>
+ * Usage: {@code Main [--uci | --perft <perft arguments>]}.
+ */
+public final class Main {
+    private Main() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--perft")) {
+            Perft.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--uci")) {
+            Uci.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        ChessBoard.main(args);
+    }
+}
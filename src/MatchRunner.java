@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless engine-vs-engine match: plays many games at once, one per pool worker, and reports results
+ * as games finish.
+ * <p>
+ * Each opening from the book is played twice with colours swapped. Each worker keeps one engine per
+ * player, with its own transposition table, cleared before every game. Finished games are appended to
+ * the PGN file straight away, and the running score, Elo estimate and SPRT log-likelihood ratio are
+ * printed after each one.
+ * <p>
+ * Usage: {@code MatchRunner [--games n] [--concurrency n] [--book file.epd] [--pgn out.pgn]
+ * [--tc base+inc | --nodes n | --depth n | --movetime ms] [--a spec] [--b spec] [--hash mb]
+ * [--sprt elo0,elo1] [--stop-on-sprt]}. Time controls are in seconds, e.g. {@code 10+0.1}. A player spec
+ * overrides the shared budget for one side, e.g. {@code --a nodes=20000} or {@code --b tc=5+0.05,hash=32}.
+ */
+public final class MatchRunner {
+
+    /**
+     * One side of the match.
+     *
+     * @param name            Name written to the PGN
+     * @param perMove         Budget per move when there is no clock
+     * @param baseMillis      Starting clock time, or 0 to play by {@code perMove}
+     * @param incrementMillis Time added after each move
+     * @param hashMegabytes   Transposition table size for this player's engines
+     */
+    public record Player(String name, Limits perMove, long baseMillis, long incrementMillis, int hashMegabytes) {
+
+        /**
+         * Applies a comma-separated list of {@code key=value} overrides ({@code tc}, {@code nodes},
+         * {@code depth}, {@code movetime}, {@code hash}).
+         */
+        Player with(String spec) {
+            Player player = this;
+            for (String item : spec.split(",")) {
+                String[] pair = item.split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Expected key=value in player spec: " + item);
+                }
+                player = player.with(pair[0].trim(), pair[1].trim());
+            }
+            return player;
+        }
+
+        Player with(String key, String value) {
+            return switch (key) {
+                case "tc" -> {
+                    String[] parts = value.split("\\+");
+                    long base = Math.round(Double.parseDouble(parts[0]) * 1000);
+                    long increment = parts.length > 1 ? Math.round(Double.parseDouble(parts[1]) * 1000) : 0;
+                    yield new Player(name, perMove, base, increment, hashMegabytes);
+                }
+                case "nodes" -> new Player(name, Limits.nodes(Long.parseLong(value)), 0, 0, hashMegabytes);
+                case "depth" -> new Player(name, Limits.depth(Integer.parseInt(value)), 0, 0, hashMegabytes);
+                case "movetime" -> new Player(name, Limits.moveTime(Long.parseLong(value)), 0, 0, hashMegabytes);
+                case "hash" -> new Player(name, perMove, baseMillis, incrementMillis, Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown player setting: " + key);
+            };
+        }
+
+        String describe() {
+            if (baseMillis > 0) {
+                return "tc=" + baseMillis / 1000.0 + "+" + incrementMillis / 1000.0;
+            }
+            Limits l = perMove;
+            return l.nodes() > 0 ? "nodes=" + l.nodes() : l.depth() > 0 ? "depth=" + l.depth() : "movetime=" + l.moveTimeMillis();
+        }
+    }
+
+    /**
+     * @param game      The finished game, ready to write as PGN
+     * @param scoreForA 1, 0.5 or 0 from player A's point of view
+     * @param plies     Moves played after the opening position
+     */
+    private record GameResult(PgnGame game, double scoreForA, int plies) {
+    }
+
+    private final Player a;
+    private final Player b;
+    private final List<String> openings;
+    private final ThreadLocal<SearchEngine[]> engines;
+    private volatile boolean stopped;
+
+    public MatchRunner(Player a, Player b, List<String> openings) {
+        this.a = a;
+        this.b = b;
+        this.openings = openings;
+        this.engines = ThreadLocal.withInitial(() -> new SearchEngine[]{
+                new SearchEngine(new TranspositionTable(a.hashMegabytes())),
+                new SearchEngine(new TranspositionTable(b.hashMegabytes()))
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 100;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        Path book = null;
+        Path pgn = Path.of("match.pgn");
+        Player shared = new Player("", Limits.nodes(10_000), 0, 0, 16);
+        String specA = null;
+        String specB = null;
+        double elo0 = 0;
+        double elo1 = 5;
+        boolean stopOnSprt = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--games" -> games = Integer.parseInt(args[++i]);
+                    case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                    case "--book" -> book = Path.of(args[++i]);
+                    case "--pgn" -> pgn = Path.of(args[++i]);
+                    case "--tc" -> shared = shared.with("tc", args[++i]);
+                    case "--nodes" -> shared = shared.with("nodes", args[++i]);
+                    case "--depth" -> shared = shared.with("depth", args[++i]);
+                    case "--movetime" -> shared = shared.with("movetime", args[++i]);
+                    case "--hash" -> shared = shared.with("hash", args[++i]);
+                    case "--a" -> specA = args[++i];
+                    case "--b" -> specB = args[++i];
+                    case "--sprt" -> {
+                        String[] bounds = args[++i].split(",");
+                        elo0 = Double.parseDouble(bounds[0]);
+                        elo1 = Double.parseDouble(bounds[1]);
+                    }
+                    case "--stop-on-sprt" -> stopOnSprt = true;
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.out.println("Bad arguments: " + e.getMessage());
+            return;
+        }
+        Player a = specA == null ? shared : shared.with(specA);
+        Player b = specB == null ? shared : shared.with(specB);
+        a = new Player("A (" + a.describe() + ")", a.perMove(), a.baseMillis(), a.incrementMillis(), a.hashMegabytes());
+        b = new Player("B (" + b.describe() + ")", b.perMove(), b.baseMillis(), b.incrementMillis(), b.hashMegabytes());
+        List<String> openings = book == null ? List.of(Perft.START_FEN) : readBook(book);
+
+        System.out.printf("%d games, %d at a time, %d openings: %s vs %s%n", games, concurrency, openings.size(), a.name(), b.name());
+        MatchStatistics statistics = new MatchStatistics(elo0, elo1, 0.05, 0.05);
+        new MatchRunner(a, b, openings).run(games, concurrency, pgn, statistics, stopOnSprt);
+    }
+
+    /**
+     * Reads FEN or EPD lines, skipping blank lines and {@code #} comments. EPD operations after the four
+     * position fields are ignored.
+     */
+    public static List<String> readBook(Path path) throws IOException {
+        List<String> openings = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            boolean hasCounters = fields.length >= 6 && fields[4].matches("\\d+") && fields[5].matches("\\d+");
+            String fen = hasCounters ? String.join(" ", Arrays.copyOf(fields, 6))
+                    : String.join(" ", Arrays.copyOf(fields, Math.min(4, fields.length))) + " 0 1";
+            Position.fromFen(fen); // Fail early on a bad line
+            openings.add(fen);
+        }
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("No positions in opening book " + path);
+        }
+        return openings;
+    }
+
+    /**
+     * Plays {@code games} games and writes them to {@code pgn} as they finish.
+     */
+    public void run(int games, int concurrency, Path pgn, MatchStatistics statistics, boolean stopOnSprt)
+            throws IOException, InterruptedException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "match-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<GameResult> results = new ExecutorCompletionService<>(pool);
+        for (int i = 0; i < games; i++) {
+            int round = i + 1;
+            String opening = openings.get((i / 2) % openings.size());
+            boolean aIsWhite = i % 2 == 0;
+            results.submit(() -> play(round, opening, aIsWhite));
+        }
+
+        long start = System.nanoTime();
+        int finished = 0;
+        try (Writer out = Files.newBufferedWriter(pgn)) {
+            while (finished < games && !stopped) {
+                GameResult result;
+                try {
+                    result = results.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Game failed", e.getCause());
+                }
+                finished++;
+                PgnWriter.write(result.game(), out);
+                out.flush();
+                statistics.add(result.scoreForA());
+                double hours = (System.nanoTime() - start) / 3.6e12;
+                System.out.printf("Game %d/%d round %s: %s vs %s %s (%s, %d plies) | %s | %.0f games/h%n",
+                        finished, games, result.game().tags().get("Round"), result.game().tags().get("White"),
+                        result.game().tags().get("Black"), result.game().result(), result.game().tags().get("Termination"), result.plies(),
+                        statistics, finished / hours);
+                if (stopOnSprt && statistics.sprtResult() != null) {
+                    System.out.println("SPRT concluded: " + statistics.sprtResult() + " accepted");
+                    stopped = true;
+                }
+            }
+        } finally {
+            stopped = true;
+            pool.shutdownNow();
+        }
+        double hours = (System.nanoTime() - start) / 3.6e12;
+        System.out.printf("Finished %d games in %.1f s: %.0f games/h%n", finished, hours * 3600, finished / hours);
+        System.out.println("Result for A: " + statistics);
+    }
+
+    private GameResult play(int round, String opening, boolean aIsWhite) {
+        Player white = aIsWhite ? a : b;
+        Player black = aIsWhite ? b : a;
+        SearchEngine[] pair = engines.get();
+        SearchEngine[] bySide = aIsWhite ? pair : new SearchEngine[]{pair[1], pair[0]};
+        Player[] players = {white, black};
+        for (SearchEngine engine : pair) {
+            engine.table().clear();
+        }
+
+        Position start = Position.fromFen(opening);
+        Position position = start.copy();
+        GameStateTracker tracker = new GameStateTracker();
+        tracker.reset(position);
+        MoveList legal = new MoveList();
+        long[] clock = {white.baseMillis(), black.baseMillis()};
+        int[] moves = new int[256];
+        int plies = 0;
+        String result;
+        String termination;
+        while (true) {
+            MoveGenerator.generateLegal(position, legal);
+            GameStateTracker.Status status = tracker.status(position, !legal.isEmpty());
+            if (status.isGameOver()) {
+                result = status.result(position.sideToMove());
+                termination = status.name().toLowerCase().replace('_', ' ');
+                break;
+            }
+            if (stopped) {
+                result = "*";
+                termination = "unterminated";
+                break;
+            }
+            int side = position.sideToMove();
+            Player player = players[side];
+            Limits limits = player.baseMillis() > 0
+                    ? Limits.fromClock(clock[side], player.incrementMillis(), 0)
+                    : player.perMove();
+            long startNanos = System.nanoTime();
+            int move = bySide[side].bestMove(position, limits).bestMove();
+            if (player.baseMillis() > 0) {
+                clock[side] -= (System.nanoTime() - startNanos) / 1_000_000;
+                if (clock[side] < 0) {
+                    result = side == Position.WHITE ? "0-1" : "1-0";
+                    termination = "time forfeit";
+                    break;
+                }
+                clock[side] += player.incrementMillis();
+            }
+            if (move == Moves.NONE) {
+                move = legal.get(0); // Only if the search was cut off before finishing depth 1
+            }
+            position.makeMove(move);
+            tracker.record(position);
+            if (plies == moves.length) {
+                moves = Arrays.copyOf(moves, plies * 2);
+            }
+            moves[plies++] = move;
+        }
+
+        PgnGame game = PgnWriter.toGame(start, Arrays.copyOf(moves, plies), result);
+        game.tags().put("Event", "Self-play match");
+        game.tags().put("Round", String.valueOf(round));
+        game.tags().put("White", white.name());
+        game.tags().put("Black", black.name());
+        game.tags().put("Termination", termination);
+        double whiteScore = result.equals("1-0") ? 1 : result.equals("0-1") ? 0 : 0.5;
+        return new GameResult(game, aIsWhite ? whiteScore : 1 - whiteScore, plies);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Running win/draw/loss tally for player A against player B, with an Elo estimate and a sequential
+ * probability ratio test (SPRT) of whether A is at least {@code elo1} stronger (H1) or no more than
+ * {@code elo0} stronger (H0).
+ * <p>
+ * The SPRT uses the normal approximation of the game outcomes' log-likelihood ratio, as common engine
+ * testing frameworks do. Not thread-safe; callers serialise updates.
+ */
+public final class MatchStatistics {
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * @param alpha Chance of accepting H1 when H0 is true
+     * @param beta  Chance of accepting H0 when H1 is true
+     */
+    public MatchStatistics(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Records one game.
+     *
+     * @param scoreForA 1 for a win by A, 0.5 for a draw, 0 for a loss
+     */
+    public void add(double scoreForA) {
+        if (scoreForA > 0.5) {
+            wins++;
+        } else if (scoreForA < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    public int games() {
+        return wins + draws + losses;
+    }
+
+    public double score() {
+        return games() == 0 ? 0.5 : (wins + 0.5 * draws) / games();
+    }
+
+    /**
+     * Elo difference implied by the score so far (positive when A is stronger).
+     */
+    public double elo() {
+        return eloFromScore(score());
+    }
+
+    /**
+     * Half-width of the 95% confidence interval of {@link #elo()}.
+     */
+    public double eloError() {
+        int n = games();
+        if (n < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double margin = 1.96 * Math.sqrt(variance() / n);
+        return (eloFromScore(score() + margin) - eloFromScore(score() - margin)) / 2;
+    }
+
+    /**
+     * Log-likelihood ratio of H1 against H0.
+     */
+    public double llr() {
+        double variance = variance();
+        if (games() == 0 || variance == 0) {
+            return 0;
+        }
+        double s0 = scoreFromElo(elo0);
+        double s1 = scoreFromElo(elo1);
+        return games() * (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance);
+    }
+
+    public double lowerBound() {
+        return lowerBound;
+    }
+
+    public double upperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns "H1", "H0", or null while the test has not concluded.
+     */
+    public String sprtResult() {
+        double llr = llr();
+        return llr >= upperBound ? "H1" : llr <= lowerBound ? "H0" : null;
+    }
+
+    @Override
+    public String toString() {
+        String sprt = sprtResult();
+        return String.format("+%d -%d =%d, score %.1f%%, Elo %+.1f +/- %.1f, LLR %.2f [%.2f, %.2f]%s",
+                wins, losses, draws, score() * 100, elo(), eloError(), llr(), lowerBound, upperBound,
+                sprt == null ? "" : ", " + sprt + " accepted");
+    }
+
+    // Per-game variance of the score
+    private double variance() {
+        int n = games();
+        if (n == 0) {
+            return 0;
+        }
+        double mean = score();
+        return (wins * (1 - mean) * (1 - mean) + draws * (0.5 - mean) * (0.5 - mean) + losses * mean * mean) / n;
+    }
+
+    private static double scoreFromElo(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double eloFromScore(double score) {
+        double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+}
@@ -0,0 +1,93 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters and latency histograms for the rule and rendering hot paths, off unless the JVM is started
+ * with {@code -Dchess.metrics=true}. Call sites test {@link #ENABLED} before touching a metric; as a
+ * static final flag it lets the JIT drop the instrumentation entirely when metrics are off.
+ * <p>
+ * When enabled, the numbers are published over JMX as {@code chess:type=Metrics} (see
+ * {@link MetricsMXBean}, e.g. in JConsole), shown by <b>Game > Show Metrics</b>, and printed to standard
+ * error when the JVM exits.
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(),
+                        new ObjectName("chess:type=Metrics"));
+            } catch (Exception e) {
+                System.err.println("Couldn't publish metrics over JMX: " + e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report()), "metrics-dump"));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * The counter called {@code name}, created on first use. Look it up once and keep it.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * The histogram called {@code name}, created on first use. Look it up once and keep it.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Every counter and histogram, one per line, sorted by name.
+     */
+    public static String report() {
+        if (!ENABLED) {
+            return "Metrics are off; start with -Dchess.metrics=true\n";
+        }
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(COUNTERS).forEach((name, count) -> text.append(name).append(' ').append(count.sum()).append('\n'));
+        new TreeMap<>(HISTOGRAMS).forEach((name, histogram) -> text.append(name).append(' ').append(histogram).append('\n'));
+        return text.toString();
+    }
+
+    public static void resetAll() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counts = new TreeMap<>();
+        COUNTERS.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, String> getLatencies() {
+        Map<String, String> latencies = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> latencies.put(name, histogram.toString()));
+        return latencies;
+    }
+
+    @Override
+    public String getReport() {
+        return report();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
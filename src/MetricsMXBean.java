@@ -0,0 +1,17 @@
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as {@code chess:type=Metrics} when metrics are enabled.
+ */
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    /**
+     * Summary of each latency histogram: count, mean and percentiles in microseconds.
+     */
+    Map<String, String> getLatencies();
+
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,177 @@
+/**
+ * Generates moves for the side to move straight from the {@link Position} bitboards.
+ */
+public final class MoveGenerator {
+    private static final long RANK_3 = 0xFFL << 16;
+    private static final long RANK_6 = 0xFFL << 40;
+    private static final long LAST_RANKS = 0xFFL | (0xFFL << 56);
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move for the side to move to {@code moves}, which is cleared first. Legality is
+     * decided from the checking and pinned pieces, without playing any move.
+     */
+    public static void generateLegal(Position position, MoveList moves) {
+        generatePseudoLegal(position, moves);
+        int us = position.sideToMove();
+        int king = position.kingSquare(us);
+        if (king == Position.NO_SQUARE) {
+            return; // Without a king every move is legal
+        }
+        long checkers = position.attackersTo(king, position.occupied()) & position.occupancy(us ^ 1);
+        long pinned = pinnedPieces(position, us, king);
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isLegal(position, move, king, checkers, pinned)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    private static boolean isLegal(Position position, int move, int king, long checkers, long pinned) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        long occupied = position.occupied();
+        long enemy = position.occupancy(position.sideToMove() ^ 1);
+
+        if (from == king) {
+            // Castling was fully checked by canCastle; otherwise the king must not step onto an attacked
+            // square, including one a slider only reaches once the king is out of the way
+            return Moves.isCastle(move) || (position.attackersTo(to, occupied ^ (1L << from)) & enemy) == 0;
+        }
+        if (Moves.isEnPassant(move)) {
+            // Two pawns leave the rank at once, which can expose the king along it, so test the new occupancy
+            int victim = to + (position.isWhiteToMove() ? -8 : 8);
+            long after = occupied ^ (1L << from) ^ (1L << to) ^ (1L << victim);
+            return (position.attackersTo(king, after) & enemy & ~(1L << victim)) == 0;
+        }
+        if (checkers != 0) {
+            if ((checkers & (checkers - 1)) != 0) {
+                return false; // Double check, only the king can move
+            }
+            int checker = Long.numberOfTrailingZeros(checkers);
+            if (((Attacks.between(king, checker) | checkers) & (1L << to)) == 0) {
+                return false; // Neither captures the checker nor blocks it
+            }
+        }
+        // A pinned piece may only slide along the pin
+        return (pinned & (1L << from)) == 0 || (Attacks.line(king, from) & (1L << to)) != 0;
+    }
+
+    /**
+     * Returns the pieces of {@code colour} that shield their king from an enemy slider.
+     */
+    static long pinnedPieces(Position position, int colour, int king) {
+        int them = colour ^ 1;
+        long occupied = position.occupied();
+        long snipers = (Attacks.rook(king, 0L) & (position.pieces(them, Position.ROOK) | position.pieces(them, Position.QUEEN)))
+                | (Attacks.bishop(king, 0L) & (position.pieces(them, Position.BISHOP) | position.pieces(them, Position.QUEEN)));
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & position.occupancy(colour);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Adds every move for the side to move that obeys the piece rules, ignoring whether it leaves the
+     * own king in check. Castling moves are only added when {@link Position#canCastle} allows them.
+     */
+    public static void generatePseudoLegal(Position position, MoveList moves) {
+        moves.clear();
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.occupancy(us);
+        long enemy = position.occupancy(them);
+        long occupied = own | enemy;
+        long targets = ~own;
+
+        generatePawnMoves(position, moves, us, enemy, occupied);
+
+        for (long knights = position.pieces(us, Position.KNIGHT); knights != 0; knights &= knights - 1) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(moves, from, Attacks.knight(from) & targets, enemy);
+        }
+        for (long bishops = position.pieces(us, Position.BISHOP); bishops != 0; bishops &= bishops - 1) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            addMoves(moves, from, Attacks.bishop(from, occupied) & targets, enemy);
+        }
+        for (long rooks = position.pieces(us, Position.ROOK); rooks != 0; rooks &= rooks - 1) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            addMoves(moves, from, Attacks.rook(from, occupied) & targets, enemy);
+        }
+        for (long queens = position.pieces(us, Position.QUEEN); queens != 0; queens &= queens - 1) {
+            int from = Long.numberOfTrailingZeros(queens);
+            addMoves(moves, from, Attacks.queen(from, occupied) & targets, enemy);
+        }
+
+        int king = position.kingSquare(us);
+        if (king != Position.NO_SQUARE) {
+            addMoves(moves, king, Attacks.king(king) & targets, enemy);
+            if (position.canCastle(us, true)) {
+                moves.add(Moves.encode(king, king + 2, 0, Moves.CASTLE));
+            }
+            if (position.canCastle(us, false)) {
+                moves.add(Moves.encode(king, king - 2, 0, Moves.CASTLE));
+            }
+        }
+    }
+
+    private static void generatePawnMoves(Position position, MoveList moves, int us, long enemy, long occupied) {
+        long pawns = position.pieces(us, Position.PAWN);
+        long empty = ~occupied;
+        int forward = us == Position.WHITE ? 8 : -8;
+
+        long singlePushes = (us == Position.WHITE ? pawns << 8 : pawns >>> 8) & empty;
+        long doublePushes = us == Position.WHITE
+                ? ((singlePushes & RANK_3) << 8) & empty
+                : ((singlePushes & RANK_6) >>> 8) & empty;
+
+        for (long pushes = singlePushes; pushes != 0; pushes &= pushes - 1) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            addPawnMove(moves, to - forward, to, 0);
+        }
+        for (long pushes = doublePushes; pushes != 0; pushes &= pushes - 1) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            moves.add(Moves.encode(to - 2 * forward, to, 0, Moves.DOUBLE_PUSH));
+        }
+
+        int enPassant = position.enPassantSquare();
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long attacks = Attacks.pawn(us, from);
+            for (long captures = attacks & enemy; captures != 0; captures &= captures - 1) {
+                addPawnMove(moves, from, Long.numberOfTrailingZeros(captures), Moves.CAPTURE);
+            }
+            if (enPassant != Position.NO_SQUARE && (attacks & (1L << enPassant)) != 0) {
+                moves.add(Moves.encode(from, enPassant, 0, Moves.CAPTURE | Moves.EN_PASSANT));
+            }
+        }
+    }
+
+    private static void addPawnMove(MoveList moves, int from, int to, int flags) {
+        if (((1L << to) & LAST_RANKS) != 0) {
+            // Every promotion choice is a separate move
+            moves.add(Moves.encode(from, to, Position.QUEEN, flags));
+            moves.add(Moves.encode(from, to, Position.ROOK, flags));
+            moves.add(Moves.encode(from, to, Position.BISHOP, flags));
+            moves.add(Moves.encode(from, to, Position.KNIGHT, flags));
+        } else {
+            moves.add(Moves.encode(from, to, 0, flags));
+        }
+    }
+
+    private static void addMoves(MoveList moves, int from, long targets, long enemy) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(Moves.encode(from, to, 0, (enemy & (1L << to)) != 0 ? Moves.CAPTURE : 0));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Reusable buffer of packed moves (see {@link Moves}). A position never has more than 218 legal moves,
+ * so the fixed capacity is never exceeded.
+ */
+public final class MoveList {
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Finds the move from {@code from} to {@code to}, preferring a queen when several promotions match.
+     *
+     * @return the packed move, or {@link Moves#NONE}
+     */
+    public int find(int from, int to) {
+        int found = Moves.NONE;
+        for (int i = 0; i < size; i++) {
+            int move = moves[i];
+            if (Moves.from(move) == from && Moves.to(move) == to) {
+                if (Moves.promotion(move) == 0 || Moves.promotion(move) == Position.QUEEN) {
+                    return move;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+}
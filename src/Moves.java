@@ -0,0 +1,89 @@
+/**
+ * Packed {@code int} move encoding: bits 0-5 hold the from square, bits 6-11 the to square,
+ * bits 12-14 the promotion piece type (0 when the move is not a promotion) and the rest are flags.
+ */
+public final class Moves {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLE = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final String PROMOTION_LETTERS = " nbrq";
+
+    private Moves() {
+    }
+
+    public static int encode(int from, int to, int promotionType, int flags) {
+        return from | (to << 6) | (promotionType << 12) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    /**
+     * The move without its flags, which fits in 16 bits. {@link #fromCompact} restores the flags.
+     */
+    public static int toCompact(int move) {
+        return move & 0x7FFF;
+    }
+
+    /**
+     * Restores the flags of a compact move to be played in {@code position}. The move is not checked
+     * for legality beyond the side to move owning the piece on its from square.
+     *
+     * @return the packed move, or {@link #NONE} if the side to move has no piece on the from square
+     */
+    public static int fromCompact(Position position, int compact) {
+        int from = from(compact);
+        int to = to(compact);
+        int piece = position.pieceAt(from);
+        if (piece == Position.EMPTY || Position.colourOf(piece) != position.sideToMove() || from == to) {
+            return NONE;
+        }
+        int flags = position.pieceAt(to) == Position.EMPTY ? 0 : CAPTURE;
+        int type = Position.typeOf(piece);
+        if (type == Position.PAWN && to == position.enPassantSquare()) {
+            flags |= CAPTURE | EN_PASSANT;
+        } else if (type == Position.PAWN && Math.abs(to - from) == 16) {
+            flags |= DOUBLE_PUSH;
+        } else if (type == Position.KING && Math.abs(to - from) == 2) {
+            flags |= CASTLE;
+        }
+        return (compact & 0x7FFF) | flags;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    /**
+     * Formats a move in long algebraic notation, e.g. {@code e2e4} or {@code e7e8q}.
+     */
+    public static String toUci(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        return promotion(move) == 0 ? text : text + PROMOTION_LETTERS.charAt(promotion(move));
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Scores positions with an {@link NnueNetwork}, keeping the hidden-layer accumulators up to date move by
+ * move instead of recomputing them: a quiet move changes two inputs per perspective, a capture three and
+ * castling four, where a refresh adds one per piece. Moves are played through {@link #makeMove} and
+ * {@link #unmakeMove} so the accumulators follow the position; taking a move back just pops a stack.
+ * <p>
+ * The inner loops run in an {@link NnueKernel}: the Vector API one when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, plain loops otherwise. Not thread-safe; use one evaluator per
+ * search thread.
+ * <p>
+ * Usage: {@code NnueEvaluator [--network file.nnue] [--export file.nnue] [fen]} prints the network's
+ * score next to {@link Evaluation}'s. {@code --export} saves the built-in network.
+ */
+public final class NnueEvaluator {
+    private static final NnueKernel BEST_KERNEL = NnueKernel.best();
+
+    private final NnueNetwork network;
+    private final NnueKernel kernel;
+    private final int hidden;
+    // Per ply, White's accumulators followed by Black's
+    private final short[][] stack;
+    private int ply;
+
+    /**
+     * @param maxPly How many moves deep {@link #makeMove} may go past the last {@link #refresh}
+     */
+    public NnueEvaluator(NnueNetwork network, int maxPly) {
+        this(network, maxPly, BEST_KERNEL);
+    }
+
+    NnueEvaluator(NnueNetwork network, int maxPly, NnueKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+        this.hidden = network.hidden;
+        this.stack = new short[maxPly + 1][2 * hidden];
+    }
+
+    public static void main(String[] args) throws IOException {
+        NnueNetwork network = NnueNetwork.fromEvaluation();
+        Position position = Position.startPosition();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--network") && i + 1 < args.length) {
+                network = NnueNetwork.load(Path.of(args[++i]));
+            } else if (args[i].equals("--export") && i + 1 < args.length) {
+                network.save(Path.of(args[++i]));
+                System.out.println("Saved the network to " + args[i]);
+            } else {
+                position = Position.fromFen(args[i]);
+            }
+        }
+        NnueEvaluator evaluator = new NnueEvaluator(network, 0);
+        evaluator.refresh(position);
+        System.out.println("NNUE (" + BEST_KERNEL.name() + ") " + evaluator.evaluate(position) + ", piece-square tables " + Evaluation.evaluate(position));
+    }
+
+    /**
+     * Recomputes the accumulators for {@code position} from scratch and makes it the bottom of the stack.
+     */
+    public void refresh(Position position) {
+        ply = 0;
+        short[] accumulators = stack[0];
+        for (int perspective = Position.WHITE; perspective <= Position.BLACK; perspective++) {
+            int offset = perspective * hidden;
+            System.arraycopy(network.hiddenBiases, 0, accumulators, offset, hidden);
+            for (long bits = position.occupied(); bits != 0; bits &= bits - 1) {
+                int square = Long.numberOfTrailingZeros(bits);
+                add(accumulators, offset, NnueNetwork.input(perspective, position.pieceAt(square), square));
+            }
+        }
+    }
+
+    /**
+     * Plays {@code move} in {@code position} and updates the accumulators to match.
+     */
+    public void makeMove(Position position, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int piece = position.pieceAt(from);
+        int us = Position.colourOf(piece);
+        int arriving = Moves.promotion(move) == 0 ? piece : Position.code(us, Moves.promotion(move));
+        int capturedSquare = Moves.isEnPassant(move) ? to + (us == Position.WHITE ? -8 : 8) : to;
+        int captured = Moves.isCapture(move) ? position.pieceAt(capturedSquare) : Position.EMPTY;
+
+        short[] previous = stack[ply];
+        short[] next = stack[++ply];
+        for (int perspective = Position.WHITE; perspective <= Position.BLACK; perspective++) {
+            int offset = perspective * hidden;
+            move(previous, next, offset, NnueNetwork.input(perspective, piece, from),
+                    NnueNetwork.input(perspective, arriving, to));
+            if (captured != Position.EMPTY) {
+                subtract(next, offset, NnueNetwork.input(perspective, captured, capturedSquare));
+            }
+            if (Moves.isCastle(move)) {
+                int rook = Position.code(us, Position.ROOK);
+                boolean kingSide = to > from;
+                subtract(next, offset, NnueNetwork.input(perspective, rook, kingSide ? from + 3 : from - 4));
+                add(next, offset, NnueNetwork.input(perspective, rook, kingSide ? from + 1 : from - 1));
+            }
+        }
+        position.makeMove(move);
+    }
+
+    public void makeNullMove(Position position) {
+        System.arraycopy(stack[ply], 0, stack[++ply], 0, 2 * hidden);
+        position.makeNullMove();
+    }
+
+    /**
+     * Takes back the last move or null move made through this evaluator.
+     */
+    public void unmakeMove(Position position) {
+        position.unmakeMove();
+        ply--;
+    }
+
+    /**
+     * Centipawns from the side to move's point of view.
+     */
+    public int evaluate(Position position) {
+        short[] accumulators = stack[ply];
+        int us = position.sideToMove();
+        int weights = 2 * hidden * network.bucket(Evaluation.phase(position));
+        // 255 * 32767 per neuron overflows an int from about 128 neurons, so loaded networks are summed in a long
+        long output = dot(accumulators, us * hidden, weights) + dot(accumulators, (1 - us) * hidden, weights + hidden);
+        long score = (output + network.outputBias) * network.scale / network.divisor;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(score, Integer.MAX_VALUE));
+    }
+
+    // Clipped ReLU of one perspective's accumulators, dotted with its half of the output weights
+    private long dot(short[] accumulators, int offset, int weightOffset) {
+        return kernel.dot(accumulators, offset, network.outputWeights, weightOffset, hidden, NnueNetwork.ACTIVATION_LIMIT);
+    }
+
+    private void move(short[] previous, short[] next, int offset, int removed, int added) {
+        kernel.move(previous, next, offset, network.inputWeights, removed * hidden, added * hidden, hidden);
+    }
+
+    private void add(short[] accumulators, int offset, int input) {
+        kernel.add(accumulators, offset, network.inputWeights, input * hidden, hidden);
+    }
+
+    private void subtract(short[] accumulators, int offset, int input) {
+        kernel.subtract(accumulators, offset, network.inputWeights, input * hidden, hidden);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The inner loops of {@link NnueEvaluator}: accumulator updates over 16-bit weight rows and the clipped
+ * ReLU dot product with the output weights. {@link #best()} picks the Vector API implementation when the
+ * {@code jdk.incubator.vector} module is present (run with {@code --add-modules jdk.incubator.vector}) and
+ * the scalar loops otherwise; {@code -Dchess.nnue.scalar=true} forces the scalar loops.
+ * <p>
+ * Both implementations wrap 16-bit sums the same way, so they produce identical results.
+ */
+interface NnueKernel {
+    /**
+     * {@code next[offset + i] = previous[offset + i] - weights[removedRow + i] + weights[addedRow + i]}.
+     */
+    void move(short[] previous, short[] next, int offset, short[] weights, int removedRow, int addedRow, int length);
+
+    void add(short[] accumulators, int offset, short[] weights, int row, int length);
+
+    void subtract(short[] accumulators, int offset, short[] weights, int row, int length);
+
+    /**
+     * Sum of {@code clamp(accumulators[offset + i], 0, limit) * weights[weightOffset + i]}.
+     */
+    long dot(short[] accumulators, int offset, short[] weights, int weightOffset, int length, int limit);
+
+    String name();
+
+    NnueKernel SCALAR = new Scalar();
+
+    static NnueKernel best() {
+        if (Boolean.getBoolean("chess.nnue.scalar") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+        return new NnueVectorKernel();
+    }
+
+    /**
+     * Branch-free passes over the arrays, which C2's auto-vectoriser handles for the updates but not for
+     * the widening dot product.
+     */
+    final class Scalar implements NnueKernel {
+        private Scalar() {
+        }
+
+        @Override
+        public void move(short[] previous, short[] next, int offset, short[] weights, int removedRow, int addedRow,
+                         int length) {
+            for (int i = 0; i < length; i++) {
+                next[offset + i] = (short) (previous[offset + i] - weights[removedRow + i] + weights[addedRow + i]);
+            }
+        }
+
+        @Override
+        public void add(short[] accumulators, int offset, short[] weights, int row, int length) {
+            for (int i = 0; i < length; i++) {
+                accumulators[offset + i] += weights[row + i];
+            }
+        }
+
+        @Override
+        public void subtract(short[] accumulators, int offset, short[] weights, int row, int length) {
+            for (int i = 0; i < length; i++) {
+                accumulators[offset + i] -= weights[row + i];
+            }
+        }
+
+        @Override
+        public long dot(short[] accumulators, int offset, short[] weights, int weightOffset, int length, int limit) {
+            long sum = 0;
+            for (int i = 0; i < length; i++) {
+                int activation = Math.max(0, Math.min(accumulators[offset + i], limit));
+                sum += activation * weights[weightOffset + i];
+            }
+            return sum;
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Quantised weights of a small efficiently updatable neural network (NNUE): 768 piece-square inputs per
+ * perspective feed a hidden layer of 16-bit accumulators, which goes through a clipped ReLU into a single
+ * output neuron that sees the side to move's half first. The output layer has one set of weights per
+ * game phase bucket, picked by {@link #bucket}, so the network can weigh the hidden layer differently as
+ * pieces come off.
+ * <p>
+ * Input {@code ((own ? 0 : 6) + type) * 64 + square} is a piece as seen by one side, with squares mirrored
+ * for Black so both perspectives share the weights. The score in centipawns is
+ * {@code (output + outputBias) * scale / divisor}.
+ * <p>
+ * File layout, little-endian: magic, hidden size, bucket count, scale and divisor as 32-bit ints, then the
+ * input weights (input-major), hidden biases and output weights (bucket-major) as 16-bit ints, then the
+ * output bias as a 32-bit int.
+ */
+public final class NnueNetwork {
+    public static final int INPUTS = 768;
+    public static final int ACTIVATION_LIMIT = 255;
+
+    public static final int MAX_BUCKETS = Evaluation.MAX_PHASE + 1;
+
+    private static final int MAGIC = 0x45554E4E; // "NNUE"
+    private static final int HEADER_SIZE = 20;
+    // The built-in network: material and piece-square values of the pieces, then the two king tables
+    private static final int PIECE_NEURONS = 128;
+    private static final int KING_NEURONS = 16;
+    private static final int DEFAULT_WEIGHT_SCALE = 4;
+
+    final int hidden;
+    final int buckets;
+    final short[] inputWeights;
+    final short[] hiddenBiases;
+    final short[] outputWeights;
+    final int outputBias;
+    final int scale;
+    final int divisor;
+
+    private NnueNetwork(int hidden, int buckets, short[] inputWeights, short[] hiddenBiases, short[] outputWeights,
+                        int outputBias, int scale, int divisor) {
+        this.hidden = hidden;
+        this.buckets = buckets;
+        this.inputWeights = inputWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.scale = scale;
+        this.divisor = divisor;
+    }
+
+    /**
+     * Reads a network saved by {@link #save} or by a trainer using the same layout.
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_SIZE || in.getInt() != MAGIC) {
+                throw new IOException("Not an NNUE network: " + path);
+            }
+            int hidden = in.getInt();
+            int buckets = in.getInt();
+            int scale = in.getInt();
+            int divisor = in.getInt();
+            if (hidden <= 0 || hidden % 8 != 0 || buckets <= 0 || buckets > MAX_BUCKETS || divisor == 0) {
+                throw new IOException("Bad NNUE network " + path + ": hidden size " + hidden + ", " + buckets
+                        + " buckets, divisor " + divisor);
+            }
+            // The output is summed in a long, so its worst case times the scale has to fit one
+            long worstOutput = 2L * hidden * ACTIVATION_LIMIT * -Short.MIN_VALUE + Integer.MAX_VALUE;
+            if (Math.abs((long) scale) > Long.MAX_VALUE / worstOutput) {
+                throw new IOException("Bad NNUE network " + path + ": scale " + scale + " can overflow the output");
+            }
+            long expected = HEADER_SIZE + 2L * (INPUTS * (long) hidden + hidden + 2L * hidden * buckets) + 4;
+            if (channel.size() != expected) {
+                throw new IOException("Bad NNUE network " + path + ": " + channel.size() + " bytes where " + expected
+                        + " were expected");
+            }
+            short[] inputWeights = new short[INPUTS * hidden];
+            short[] hiddenBiases = new short[hidden];
+            short[] outputWeights = new short[2 * hidden * buckets];
+            in.asShortBuffer().get(inputWeights).get(hiddenBiases).get(outputWeights);
+            int outputBias = in.getInt(in.position() + 2 * (inputWeights.length + hiddenBiases.length + outputWeights.length));
+            return new NnueNetwork(hidden, buckets, inputWeights, hiddenBiases, outputWeights, outputBias, scale, divisor);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        int size = HEADER_SIZE + 2 * (inputWeights.length + hiddenBiases.length + outputWeights.length) + 4;
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(hidden).putInt(buckets).putInt(scale).putInt(divisor);
+        for (short weight : inputWeights) {
+            out.putShort(weight);
+        }
+        for (short bias : hiddenBiases) {
+            out.putShort(bias);
+        }
+        for (short weight : outputWeights) {
+            out.putShort(weight);
+        }
+        out.putInt(outputBias).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    /**
+     * A network that reproduces {@link Evaluation}, for use until trained weights are available. The
+     * pieces' material and table values are spread evenly over one group of hidden neurons and the king's
+     * middlegame and endgame table values over two more; each phase bucket then blends the king groups the
+     * way the evaluation does. Hidden biases sit mid-range so that typical positions stay clear of the
+     * clipping.
+     */
+    public static NnueNetwork fromEvaluation() {
+        int hidden = PIECE_NEURONS + 2 * KING_NEURONS;
+        int kingMiddlegame = PIECE_NEURONS;
+        int kingEndgame = PIECE_NEURONS + KING_NEURONS;
+        short[] inputWeights = new short[INPUTS * hidden];
+        for (int input = 0; input < INPUTS; input++) {
+            int piece = input / 64;
+            int square = input % 64;
+            // Seen from White; own pieces count for, the opponent's against
+            int code = Position.code(piece < 6 ? Position.WHITE : Position.BLACK, piece % 6);
+            int sign = (piece < 6 ? 1 : -1) * DEFAULT_WEIGHT_SCALE;
+            if (Position.typeOf(code) == Position.KING) {
+                spread(inputWeights, input, hidden, kingMiddlegame, KING_NEURONS,
+                        sign * Evaluation.pieceSquareValue(code, square));
+                spread(inputWeights, input, hidden, kingEndgame, KING_NEURONS,
+                        sign * Evaluation.kingEndgameValue(code, square));
+            } else {
+                spread(inputWeights, input, hidden, 0, PIECE_NEURONS, sign * Evaluation.pieceSquareValue(code, square));
+            }
+        }
+        short[] hiddenBiases = new short[hidden];
+        Arrays.fill(hiddenBiases, (short) ((ACTIVATION_LIMIT + 1) / 2));
+        int buckets = MAX_BUCKETS;
+        short[] outputWeights = new short[2 * hidden * buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            // Bucket b is phase b, so the king groups get the evaluation's own blend; the rest is scaled to match
+            for (int neuron = 0; neuron < hidden; neuron++) {
+                int weight = neuron < kingMiddlegame ? Evaluation.MAX_PHASE
+                        : neuron < kingEndgame ? bucket : Evaluation.MAX_PHASE - bucket;
+                outputWeights[2 * hidden * bucket + neuron] = (short) weight;
+                outputWeights[2 * hidden * bucket + hidden + neuron] = (short) -weight;
+            }
+        }
+        // Both halves count the same material, once from each side
+        int divisor = 2 * DEFAULT_WEIGHT_SCALE * Evaluation.MAX_PHASE;
+        return new NnueNetwork(hidden, buckets, inputWeights, hiddenBiases, outputWeights, 0, 1, divisor);
+    }
+
+    // Splits value over count neurons starting at first, rotating which ones take the remainder so
+    // rounding doesn't pile up in the first few
+    private static void spread(short[] inputWeights, int input, int hidden, int first, int count, int value) {
+        int share = Math.floorDiv(value, count);
+        int remainder = Math.floorMod(value, count);
+        for (int neuron = 0; neuron < count; neuron++) {
+            boolean extra = Math.floorMod(neuron - input, count) < remainder;
+            inputWeights[input * hidden + first + neuron] = (short) (share + (extra ? 1 : 0));
+        }
+    }
+
+    public int hidden() {
+        return hidden;
+    }
+
+    /**
+     * Output bucket for a position at game phase {@code phase} (see {@link Evaluation#phase}).
+     */
+    int bucket(int phase) {
+        return phase * buckets / MAX_BUCKETS;
+    }
+
+    /**
+     * Input index of piece {@code code} on {@code square} as seen by {@code perspective}.
+     */
+    static int input(int perspective, int code, int square) {
+        int own = Position.colourOf(code) == perspective ? 0 : 6;
+        return (own + Position.typeOf(code)) * 64 + (perspective == Position.WHITE ? square : square ^ 56);
+    }
+}
@@ -0,0 +1,96 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NnueKernel} on the incubating Vector API, using the widest vectors the CPU has. Only load this
+ * class when the {@code jdk.incubator.vector} module is present; {@link NnueKernel#best()} checks.
+ * <p>
+ * The dot product widens each 16-bit lane to 32 bits before multiplying and adds the 32-bit lane sums
+ * into a long every {@link #FLUSH_INTERVAL} steps, before their total can overflow.
+ */
+final class NnueVectorKernel implements NnueKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // Half-width shorts, so one load widens into exactly one int vector
+    private static final VectorSpecies<Short> NARROW_SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2));
+    // Lanes are reduced in int: 256 products of at most 255 * 32768 still fit one
+    private static final int FLUSH_INTERVAL = Math.max(1, 256 / INTS.length());
+
+    @Override
+    public void move(short[] previous, short[] next, int offset, short[] weights, int removedRow, int addedRow,
+                     int length) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, previous, offset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, removedRow + i))
+                    .add(ShortVector.fromArray(SHORTS, weights, addedRow + i))
+                    .intoArray(next, offset + i);
+        }
+        for (; i < length; i++) {
+            next[offset + i] = (short) (previous[offset + i] - weights[removedRow + i] + weights[addedRow + i]);
+        }
+    }
+
+    @Override
+    public void add(short[] accumulators, int offset, short[] weights, int row, int length) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulators, offset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(accumulators, offset + i);
+        }
+        for (; i < length; i++) {
+            accumulators[offset + i] += weights[row + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulators, int offset, short[] weights, int row, int length) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulators, offset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(accumulators, offset + i);
+        }
+        for (; i < length; i++) {
+            accumulators[offset + i] -= weights[row + i];
+        }
+    }
+
+    @Override
+    public long dot(short[] accumulators, int offset, short[] weights, int weightOffset, int length, int limit) {
+        ShortVector zero = ShortVector.zero(NARROW_SHORTS);
+        ShortVector ceiling = ShortVector.broadcast(NARROW_SHORTS, (short) limit);
+        long sum = 0;
+        IntVector lanes = IntVector.zero(INTS);
+        int steps = 0;
+        int i = 0;
+        for (int bound = NARROW_SHORTS.loopBound(length); i < bound; i += NARROW_SHORTS.length()) {
+            ShortVector activations = ShortVector.fromArray(NARROW_SHORTS, accumulators, offset + i).max(zero).min(ceiling);
+            IntVector products = ((IntVector) activations.convertShape(VectorOperators.S2I, INTS, 0))
+                    .mul((IntVector) ShortVector.fromArray(NARROW_SHORTS, weights, weightOffset + i)
+                            .convertShape(VectorOperators.S2I, INTS, 0));
+            lanes = lanes.add(products);
+            if (++steps == FLUSH_INTERVAL) {
+                sum += lanes.reduceLanesToLong(VectorOperators.ADD);
+                lanes = IntVector.zero(INTS);
+                steps = 0;
+            }
+        }
+        sum += lanes.reduceLanesToLong(VectorOperators.ADD);
+        for (; i < length; i++) {
+            int activation = Math.max(0, Math.min(accumulators[offset + i], limit));
+            sum += activation * weights[weightOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SHORTS.vectorBitSize() + "-bit)";
+    }
+}
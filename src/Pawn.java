@@ -4,38 +4,33 @@
 public record Pawn(boolean isWhite) implements Piece {
 
     @Override
-    public boolean isValidMove(int currentX, int currentY, int newX, int newY, Piece[][] board, ChessBoard chessBoard) {
-        int forwardDirection = isWhite ? -1 : 1; // White Pawns move up, Black Pawns move down
-        boolean isDestinationOccupiedSameColor = board[newX][newY] != null && board[newX][newY].isWhite() == this.isWhite;
-        boolean isDestinationOccupiedOppositeColor = board[newX][newY] != null && board[newX][newY].isWhite() != this.isWhite;
+    public boolean isValidMove(Position position, int from, int to) {
+        int colour = Position.colour(isWhite);
+        int forward = isWhite ? 8 : -8; // White Pawns move up the board, Black Pawns move down
+        long empty = ~position.occupied();
+        long target = 1L << to;
 
         // Normal move forward
-        if (newX == currentX + forwardDirection && newY == currentY && !isDestinationOccupiedSameColor && !isDestinationOccupiedOppositeColor) {
-            return true;
+        if (to == from + forward) {
+            return (empty & target) != 0;
         }
 
         // Double move forward (only from starting position)
-        if ((isWhite && currentX == 6 || !isWhite && currentX == 1) && newX == currentX + 2 * forwardDirection && newY == currentY && !isDestinationOccupiedSameColor && !isDestinationOccupiedOppositeColor) {
-            return true;
+        int startRank = isWhite ? 1 : 6;
+        if (from >>> 3 == startRank && to == from + 2 * forward) {
+            return (empty & (1L << (from + forward))) != 0 && (empty & target) != 0;
         }
 
-        // Check for en passant
-        if (newX == currentX + forwardDirection && Math.abs(newY - currentY) == 1 && board[newX][newY] == null) {
-            Piece enPassantPiece = board[currentX][newY];
-            if (enPassantPiece instanceof Pawn && enPassantPiece.isWhite() != this.isWhite) {
-                ChessBoard.Move lastMove = chessBoard.getLastMove();
-                /*if (lastMove != null && lastMove.piece() == enPassantPiece &&
-                        lastMove.fromX() == currentX - 2 * forwardDirection && lastMove.toX() == currentX &&
-                        lastMove.fromY() == newY && lastMove.toY() == newY) {*/
-                if (lastMove != null && lastMove.piece() == enPassantPiece) {
-                    return true;
-                }
-            }
+        // Diagonal capture, including en passant onto the square the enemy pawn skipped
+        if ((Attacks.pawn(colour, from) & target) != 0) {
+            return (position.occupancy(colour ^ 1) & target) != 0 || to == position.enPassantSquare();
         }
+        return false;
+    }
 
-
-        // Diagonal capture
-        return newX == currentX + forwardDirection && Math.abs(newY - currentY) == 1 && isDestinationOccupiedOppositeColor;
+    @Override
+    public int type() {
+        return Position.PAWN;
     }
 
     @Override
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. Comparing the counts against
+ * published values catches rule bugs, and the node rate doubles as a move generator benchmark.
+ * <p>
+ * Usage: {@code Perft <depth> [fen]}, {@code Perft --divide <depth> [fen]} or {@code Perft --suite [maxDepth]}.
+ */
+public final class Perft {
+    static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * @param nodes Expected leaf counts, starting at depth 1
+     */
+    record Reference(String name, String fen, long... nodes) {
+    }
+
+    static final List<Reference> REFERENCES = List.of(
+            new Reference("start", START_FEN,
+                    20, 400, 8_902, 197_281, 4_865_609, 119_060_324),
+            new Reference("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2_039, 97_862, 4_085_603, 193_690_690),
+            new Reference("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2_812, 43_238, 674_624, 11_030_083),
+            new Reference("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9_467, 422_333, 15_833_292),
+            new Reference("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1_486, 62_379, 2_103_487, 89_941_194),
+            new Reference("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2_079, 89_890, 3_894_594, 164_075_551)
+    );
+
+    private static final int MAX_DEPTH = 64;
+
+    private final Position position = new Position();
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH + 1];
+
+    public Perft() {
+        for (int i = 0; i <= MAX_DEPTH; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [fen] | --divide <depth> [fen] | --suite [maxDepth]");
+            return;
+        }
+        Perft perft = new Perft();
+        switch (args[0]) {
+            case "--suite" -> {
+                boolean passed = perft.runSuite(args.length > 1 ? Integer.parseInt(args[1]) : 4);
+                System.exit(passed ? 0 : 1);
+            }
+            case "--divide" -> perft.divide(Position.fromFen(fenArgument(args, 2)), Integer.parseInt(args[1]));
+            default -> perft.report(Position.fromFen(fenArgument(args, 1)), Integer.parseInt(args[0]));
+        }
+    }
+
+    private static String fenArgument(String[] args, int start) {
+        return args.length > start ? String.join(" ", Arrays.copyOfRange(args, start, args.length)) : START_FEN;
+    }
+
+    /**
+     * Counts the leaf nodes {@code depth} plies below {@code position}.
+     */
+    public long count(Position position, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+        }
+        this.position.copyFrom(position);
+        return count(0, depth);
+    }
+
+    private long count(int ply, int depth) {
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegal(position, moves);
+        if (depth == 1) {
+            return moves.size(); // Bulk counting at the last ply
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += count(ply + 1, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private void report(Position position, int depth) {
+        long start = System.nanoTime();
+        long nodes = count(position, depth);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + elapsed / 1_000_000 + " ms");
+        System.out.println("Nodes per second: " + nodesPerSecond(nodes, elapsed));
+    }
+
+    private void divide(Position position, int depth) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        long total = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            long nodes = depth == 1 ? 1 : count(position, depth - 1);
+            position.unmakeMove();
+            System.out.println(Moves.toUci(moves.get(i)) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Nodes: " + total);
+    }
+
+    /**
+     * Checks every reference position up to {@code maxDepth} plies.
+     *
+     * @return true if every count matched
+     */
+    public boolean runSuite(int maxDepth) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (Reference reference : REFERENCES) {
+            Position position = Position.fromFen(reference.fen());
+            int depthLimit = Math.min(maxDepth, reference.nodes().length);
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                long start = System.nanoTime();
+                long nodes = count(position, depth);
+                long elapsed = System.nanoTime() - start;
+                long expected = reference.nodes()[depth - 1];
+                boolean matches = nodes == expected;
+                passed &= matches;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                System.out.println((matches ? "PASS " : "FAIL ") + reference.name() + " depth " + depth
+                        + ": " + nodes + (matches ? "" : " (expected " + expected + ")")
+                        + ", " + nodesPerSecond(nodes, elapsed) + " nps");
+            }
+        }
+        System.out.println((passed ? "All perft counts match" : "Perft mismatch")
+                + ", " + totalNodes + " nodes at " + nodesPerSecond(totalNodes, totalTime) + " nps");
+        return passed;
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game from a PGN file, with the movetext reduced to its mainline SAN moves. Comments, variations
+ * and numeric annotation glyphs are dropped by the reader.
+ *
+ * @param tags   Tag pairs in file order, e.g. {@code Event}, {@code White}, {@code Result}
+ * @param moves  Mainline moves in SAN
+ * @param result Game termination marker: {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+
+    /**
+     * Returns the position the game starts from: the {@code FEN} tag if present, else the standard start.
+     */
+    public Position startPosition() {
+        String fen = tags.get("FEN");
+        return fen != null ? Position.fromFen(fen) : Position.startPosition();
+    }
+
+    /**
+     * Decodes the SAN moves into packed moves, playing them on a copy of the start position.
+     *
+     * @throws IllegalArgumentException if a move is illegal or ambiguous
+     */
+    public int[] decodeMoves() {
+        Position position = startPosition();
+        MoveList legal = new MoveList();
+        int[] decoded = new int[moves.size()];
+        for (int i = 0; i < decoded.length; i++) {
+            MoveGenerator.generateLegal(position, legal);
+            decoded[i] = San.parse(position, moves.get(i), legal);
+            position.makeMove(decoded[i]);
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming PGN reader. Bytes are pulled through a fixed direct buffer and games are handed out one
+ * at a time, so memory use depends on the largest single game, not on the size of the file.
+ * <p>
+ * Usage as a throughput check: {@code PgnReader <file.pgn> [--decode]}
+ */
+public final class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder(64);
+    private int pushedBack = -1;
+    private byte[] text = new byte[256];
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: PgnReader <file.pgn> [--decode]");
+            return;
+        }
+        boolean decode = args.length > 1 && args[1].equals("--decode");
+        long games = 0;
+        long moves = 0;
+        long illegal = 0;
+        long start = System.nanoTime();
+        try (PgnReader reader = open(Path.of(args[0]))) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                games++;
+                moves += game.moves().size();
+                if (decode) {
+                    try {
+                        game.decodeMoves();
+                    } catch (IllegalArgumentException e) {
+                        illegal++;
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves in %.2f s: %.0f games/s, %.0f moves/s%n",
+                games, moves, seconds, games / seconds, moves / seconds);
+        if (decode) {
+            System.out.println(illegal + " games with illegal or ambiguous moves");
+        }
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return the game, or null at the end of the input
+     * @throws IOException if reading fails
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        while (true) {
+            int c = skipWhitespace();
+            if (c < 0) {
+                return tags.isEmpty() && moves.isEmpty() ? null : new PgnGame(tags, moves, tags.getOrDefault("Result", "*"));
+            }
+            switch (c) {
+                case '[' -> {
+                    if (!moves.isEmpty()) {
+                        // A new tag section without a result marker, so the last game ended unterminated
+                        pushedBack = c;
+                        return new PgnGame(tags, moves, "*");
+                    }
+                    readTag(tags);
+                }
+                case '{' -> skipUntil('}');
+                case ';' -> skipUntil('\n');
+                case '(' -> skipVariation();
+                case '%' -> skipUntil('\n'); // Escape mechanism, the rest of the line is ignored
+                default -> {
+                    String word = readToken(c);
+                    if (isResult(word)) {
+                        return new PgnGame(tags, moves, word);
+                    }
+                    String move = stripMoveNumber(word);
+                    if (!move.isEmpty() && move.charAt(0) != '$') {
+                        moves.add(move);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        int c = skipWhitespace();
+        token.setLength(0);
+        while (c >= 0 && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            token.append((char) c);
+            c = read();
+        }
+        String name = token.toString();
+        while (c >= 0 && c != '"' && c != ']') {
+            c = read();
+        }
+        String value = "";
+        if (c == '"') {
+            // Tag values may hold UTF-8 text, so collect raw bytes and decode once
+            int length = 0;
+            for (c = read(); c >= 0 && c != '"'; c = read()) {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (length == text.length) {
+                    text = Arrays.copyOf(text, length * 2);
+                }
+                text[length++] = (byte) c;
+            }
+            value = new String(text, 0, length, StandardCharsets.UTF_8);
+            skipUntil(']');
+        }
+        tags.put(name, value);
+    }
+
+    private String readToken(int first) throws IOException {
+        token.setLength(0);
+        int c = first;
+        while (c >= 0 && !Character.isWhitespace(c) && "{}()[];".indexOf(c) < 0) {
+            token.append((char) c);
+            c = read();
+        }
+        if (c >= 0 && !Character.isWhitespace(c)) {
+            pushedBack = c;
+        }
+        return token.toString();
+    }
+
+    // "12.", "12...", and "12.e4" all reduce to the move itself (possibly empty)
+    private static String stripMoveNumber(String word) {
+        int i = 0;
+        while (i < word.length() && Character.isDigit(word.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == word.length() || word.charAt(i) != '.') {
+            return i == word.length() ? "" : word;
+        }
+        while (i < word.length() && word.charAt(i) == '.') {
+            i++;
+        }
+        return word.substring(i);
+    }
+
+    private static boolean isResult(String word) {
+        return word.equals("1-0") || word.equals("0-1") || word.equals("1/2-1/2") || word.equals("*");
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0) {
+                return;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipUntil('\n');
+            }
+        }
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int count;
+            do {
+                count = channel.read(buffer);
+            } while (count == 0);
+            buffer.flip();
+            if (count < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+}
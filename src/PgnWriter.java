@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in PGN export format: the Seven Tag Roster first, then any other tags, then numbered SAN
+ * movetext wrapped at 80 columns.
+ */
+public final class PgnWriter {
+    private static final List<String> SEVEN_TAG_ROSTER = List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE_WIDTH = 80;
+
+    private PgnWriter() {
+    }
+
+    /**
+     * Builds a game record from moves played on {@code start}, filling in default roster tags.
+     *
+     * @param start  Position before the first move; a {@code FEN} tag is added unless it is the standard start
+     * @param moves  Packed moves, all legal in sequence
+     * @param result Termination marker
+     */
+    public static PgnGame toGame(Position start, int[] moves, String result) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "?");
+        tags.put("Site", "?");
+        tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+        tags.put("Round", "-");
+        tags.put("White", "?");
+        tags.put("Black", "?");
+        tags.put("Result", result);
+        String fen = start.toFen();
+        if (!fen.equals(Perft.START_FEN)) {
+            tags.put("SetUp", "1");
+            tags.put("FEN", fen);
+        }
+        Position position = start.copy();
+        List<String> san = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            san.add(San.format(position, move));
+            position.makeMove(move);
+        }
+        return new PgnGame(tags, san, result);
+    }
+
+    public static void write(PgnGame game, Writer out) throws IOException {
+        for (String name : SEVEN_TAG_ROSTER) {
+            writeTag(out, name, game.tags().getOrDefault(name, name.equals("Result") ? game.result() : "?"));
+        }
+        for (Map.Entry<String, String> tag : game.tags().entrySet()) {
+            if (!SEVEN_TAG_ROSTER.contains(tag.getKey())) {
+                writeTag(out, tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        Position start = game.startPosition();
+        int number = start.fullmoveNumber();
+        boolean white = start.isWhiteToMove();
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < game.moves().size(); i++) {
+            if (white) {
+                append(out, line, number + ".");
+            } else if (i == 0) {
+                append(out, line, number + "...");
+            }
+            append(out, line, game.moves().get(i));
+            if (!white) {
+                number++;
+            }
+            white = !white;
+        }
+        append(out, line, game.result());
+        out.write(line.append("\n\n").toString());
+    }
+
+    private static void writeTag(Writer out, String name, String value) throws IOException {
+        out.write('[' + name + " \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]\n");
+    }
+
+    private static void append(Writer out, StringBuilder line, String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+            out.write(line.append('\n').toString());
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+}
@@ -1,5 +1,27 @@
 public interface Piece {
-    boolean isValidMove(int currentX, int currentY, int newX, int newY, Piece[][] board, ChessBoard chessBoard);
+    boolean isValidMove(Position position, int from, int to);
     boolean isWhite();
+    int type();
     String getImageName();
+
+    default int code() {
+        return Position.code(Position.colour(isWhite()), type());
+    }
+
+    /**
+     * Returns the shared piece instance for a {@link Position} piece code, or null for an empty square.
+     */
+    static Piece of(int code) {
+        return code == Position.EMPTY ? null : Pieces.ALL[code];
+    }
+
+    final class Pieces {
+        private static final Piece[] ALL = {
+                new Pawn(true), new Knight(true), new Bishop(true), new Rook(true), new Queen(true), new King(true),
+                new Pawn(false), new Knight(false), new Bishop(false), new Rook(false), new Queen(false), new King(false)
+        };
+
+        private Pieces() {
+        }
+    }
 }
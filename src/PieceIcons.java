@@ -0,0 +1,129 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Piece icons decoded once and kept pre-scaled for the current square size. Asking for an icon is an
+ * array lookup; the twelve images are only rescaled when the requested size changes.
+ * <p>
+ * Must be used from the event dispatch thread.
+ */
+public final class PieceIcons {
+    // Size the board used before it could be resized, kept as the starting size and aspect ratio
+    static final int DEFAULT_WIDTH = 50;
+    static final int DEFAULT_HEIGHT = 65;
+
+    private static final LatencyHistogram LOAD_TIME = Metrics.histogram("icons.load");
+    private static final LatencyHistogram SCALE_TIME = Metrics.histogram("icons.scale");
+
+    private final BufferedImage[] originals = new BufferedImage[12];
+    private final BufferedImage[] scaled = new BufferedImage[12];
+    private int width = -1;
+    private int height = -1;
+
+    public PieceIcons() {
+        for (int code = 0; code < originals.length; code++) {
+            String name = Piece.of(code).getImageName();
+            URL imgUrl = getClass().getClassLoader().getResource(name);
+            if (imgUrl == null) {
+                Log.warn("Couldn't find file: " + name);
+                continue;
+            }
+            ChessEvents.IconLoad event = new ChessEvents.IconLoad();
+            event.begin();
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            try {
+                originals[code] = ImageIO.read(imgUrl);
+            } catch (IOException e) {
+                Log.warn("Couldn't read file: " + name);
+            }
+            if (Metrics.ENABLED) {
+                LOAD_TIME.recordNanos(System.nanoTime() - start);
+            }
+            commit(event, name, originals[code]);
+        }
+    }
+
+    /**
+     * Returns the image for {@code piece} at the current size, or null for an empty square.
+     */
+    public BufferedImage get(Piece piece) {
+        if (piece == null) {
+            return null;
+        }
+        if (width < 0) {
+            resize(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+        }
+        return scaled[piece.code()];
+    }
+
+    /**
+     * Fits the icons to a square of the given size, keeping the original proportions.
+     *
+     * @return true if the icon size changed
+     */
+    public boolean fitTo(int squareWidth, int squareHeight) {
+        if (squareWidth <= 0 || squareHeight <= 0) {
+            return false;
+        }
+        int h = Math.min(squareHeight * 9 / 10, squareWidth * 9 / 10 * DEFAULT_HEIGHT / DEFAULT_WIDTH);
+        return resize(Math.max(1, h * DEFAULT_WIDTH / DEFAULT_HEIGHT), Math.max(1, h));
+    }
+
+    private boolean resize(int newWidth, int newHeight) {
+        if (newWidth == width && newHeight == height) {
+            return false;
+        }
+        width = newWidth;
+        height = newHeight;
+        for (int code = 0; code < originals.length; code++) {
+            if (originals[code] == null) {
+                continue;
+            }
+            ChessEvents.IconLoad event = new ChessEvents.IconLoad();
+            event.begin();
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            scaled[code] = scale(originals[code], width, height);
+            if (Metrics.ENABLED) {
+                SCALE_TIME.recordNanos(System.nanoTime() - start);
+            }
+            commit(event, Piece.of(code).getImageName(), scaled[code]);
+        }
+        return true;
+    }
+
+    private static void commit(ChessEvents.IconLoad event, String name, BufferedImage image) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.image = name;
+            if (image != null) {
+                event.width = image.getWidth();
+                event.height = image.getHeight();
+                event.bytes = 4L * image.getWidth() * image.getHeight();
+            }
+            event.commit();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        // Halve in steps first; a single bilinear pass from a much larger image drops detail
+        BufferedImage image = source;
+        while (image.getWidth() / 2 >= width && image.getHeight() / 2 >= height) {
+            image = draw(image, image.getWidth() / 2, image.getHeight() / 2);
+        }
+        return draw(image, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return target;
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles PGN archives into a {@link PolyglotBook}. Each move played in the first {@code --max-ply}
+ * plies scores 2 for the mover when they went on to win and 1 for a draw; the totals become the book
+ * weights, scaled down if needed to fit 16 bits. Moves that only ever lost are left out.
+ * <p>
+ * Usage: {@code PolyglotBookBuilder <out.bin> <file.pgn>... [--max-ply n]}
+ */
+public final class PolyglotBookBuilder {
+    private static final int DEFAULT_MAX_PLY = 20;
+
+    private record Key(long key, int move) {
+    }
+
+    private final int maxPly;
+    private final Map<Key, Long> weights = new HashMap<>();
+    private long games;
+    private long skipped;
+
+    public PolyglotBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PolyglotBookBuilder <out.bin> <file.pgn>... [--max-ply n]");
+            return;
+        }
+        int maxPly = DEFAULT_MAX_PLY;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--max-ply") && i + 1 < args.length) {
+                maxPly = Integer.parseInt(args[++i]);
+            } else {
+                inputs.add(Path.of(args[i]));
+            }
+        }
+
+        long start = System.nanoTime();
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(maxPly);
+        for (Path input : inputs) {
+            try (PgnReader reader = PgnReader.open(input)) {
+                for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                    builder.add(game);
+                }
+            }
+        }
+        int entries = builder.write(Path.of(args[0]));
+        System.out.printf("%d games (%d skipped), %d entries written in %.1f s%n",
+                builder.games, builder.skipped, entries, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Adds the opening of one game. Games without a decisive or drawn result, or with illegal moves,
+     * are skipped.
+     */
+    public void add(PgnGame game) {
+        int whiteScore = switch (game.result()) {
+            case "1-0" -> 2;
+            case "1/2-1/2" -> 1;
+            case "0-1" -> 0;
+            default -> -1;
+        };
+        if (whiteScore < 0) {
+            skipped++;
+            return;
+        }
+        int[] moves;
+        Position position;
+        try {
+            position = game.startPosition();
+            moves = game.decodeMoves();
+        } catch (IllegalArgumentException e) {
+            skipped++;
+            return;
+        }
+        games++;
+        for (int ply = 0; ply < Math.min(maxPly, moves.length); ply++) {
+            int score = position.isWhiteToMove() ? whiteScore : 2 - whiteScore;
+            if (score > 0) {
+                weights.merge(new Key(PolyglotBook.key(position), PolyglotBook.encodeMove(moves[ply])),
+                        (long) score, Long::sum);
+            }
+            position.makeMove(moves[ply]);
+        }
+    }
+
+    /**
+     * Writes the book sorted by key, heaviest move first within a key.
+     *
+     * @return the number of entries written
+     */
+    public int write(Path path) throws IOException {
+        List<Map.Entry<Key, Long>> sorted = new ArrayList<>(weights.entrySet());
+        sorted.sort((x, y) -> {
+            int byKey = Long.compareUnsigned(x.getKey().key(), y.getKey().key());
+            return byKey != 0 ? byKey : Long.compare(y.getValue(), x.getValue());
+        });
+        long heaviest = 1;
+        for (Map.Entry<Key, Long> entry : sorted) {
+            heaviest = Math.max(heaviest, entry.getValue());
+        }
+        double scale = Math.min(1.0, 0xFFFF / (double) heaviest);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PolyglotBook.ENTRY_SIZE * 4096).order(ByteOrder.BIG_ENDIAN);
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Key, Long> entry : sorted) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, out);
+                }
+                buffer.putLong(entry.getKey().key());
+                buffer.putShort((short) entry.getKey().move());
+                buffer.putShort((short) Math.max(1, Math.round(entry.getValue() * scale)));
+                buffer.putInt(0);
+            }
+            drain(buffer, out);
+        }
+        return sorted.size();
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,630 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless chess position backed by bitboards. Squares are numbered a1 = 0, b1 = 1, ... h8 = 63,
+ * and pieces are coded as {@code colour * 6 + type}, with {@link #EMPTY} for a vacant square.
+ */
+public final class Position {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    // Castling rights that survive a move touching each square (king and rook home squares clear them)
+    private static final int[] CASTLING_MASK = new int[64];
+    private static final LongAdder ATTACK_SCANS = Metrics.counter("position.attackScans");
+
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[4] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASK[0] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_MASK[7] &= ~WHITE_KING_SIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEEN_SIDE;
+        CASTLING_MASK[63] &= ~BLACK_KING_SIDE;
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+    private final int[] board = new int[64];
+    private boolean whiteToMove = true;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private long hash;
+
+    // Undo stack for unmakeMove, one slot per move played; grown by doubling so it never allocates per move
+    private int[] undoMoves = new int[0];
+    private int[] undoCaptured = new int[0];
+    private int[] undoState = new int[0];
+    private long[] undoHash = new long[0];
+    private int undoSize;
+
+    // Squares attacked by each colour, rebuilt on the first query after the board changes
+    private final long[] attackMaps = new long[2];
+    private boolean attackMapsValid;
+
+    public Position() {
+        Arrays.fill(board, EMPTY);
+    }
+
+    public static Position startPosition() {
+        Position position = new Position();
+        int[] backRank = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+        for (int file = 0; file < 8; file++) {
+            position.put(file, code(WHITE, backRank[file]));
+            position.put(8 + file, code(WHITE, PAWN));
+            position.put(48 + file, code(BLACK, PAWN));
+            position.put(56 + file, code(BLACK, backRank[file]));
+        }
+        position.castlingRights = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+        position.hash = position.computeHash();
+        return position;
+    }
+
+    /**
+     * Sets up a position without castling rights or an en passant square, e.g. for generated endgames.
+     *
+     * @param codes Piece code per square (a1 = 0), or {@link #EMPTY}
+     */
+    static Position of(int[] codes, int sideToMove) {
+        Position position = new Position();
+        for (int square = 0; square < 64; square++) {
+            if (codes[square] != EMPTY) {
+                position.put(square, codes[square]);
+            }
+        }
+        position.whiteToMove = sideToMove == WHITE;
+        position.hash = position.computeHash();
+        return position;
+    }
+
+    /**
+     * Parses a position in Forsyth-Edwards Notation. The move clocks may be omitted. An en passant square
+     * no pawn can take on is dropped, as {@link #makeMove} does.
+     *
+     * @throws IllegalArgumentException if the text is not a valid FEN string
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+        Position position = new Position();
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                if (file != 8) {
+                    throw new IllegalArgumentException("Rank " + (rank + 1) + " doesn't have 8 squares in FEN: " + fen);
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw new IllegalArgumentException("Rank " + (rank + 1) + " has more than 8 squares in FEN: " + fen);
+                }
+            } else {
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (type < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                position.put(rank * 8 + file, code(Character.isUpperCase(c) ? WHITE : BLACK, type));
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) {
+            throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+        }
+
+        if (!fields[1].equals("w") && !fields[1].equals("b")) {
+            throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        }
+        position.whiteToMove = fields[1].equals("w");
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> position.castlingRights |= WHITE_KING_SIDE;
+                case 'Q' -> position.castlingRights |= WHITE_QUEEN_SIDE;
+                case 'k' -> position.castlingRights |= BLACK_KING_SIDE;
+                case 'q' -> position.castlingRights |= BLACK_QUEEN_SIDE;
+                case '-' -> {
+                }
+                default -> throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+            }
+        }
+        if (!fields[3].equals("-")) {
+            position.enPassantSquare = parseSquare(fields[3]);
+        }
+        try {
+            position.halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            position.fullmoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad move clocks in FEN: " + fen, e);
+        }
+        if (position.halfmoveClock < 0 || position.fullmoveNumber < 1) {
+            throw new IllegalArgumentException("Bad move clocks in FEN: " + fen);
+        }
+        position.validate(fen);
+        if (position.enPassantSquare != NO_SQUARE
+                && !position.canCaptureEnPassant(position.enPassantSquare, position.whiteToMove ? BLACK : WHITE)) {
+            // Kept only when a capture is possible, as makeMove does, so a FEN hashes like the game it came from
+            position.enPassantSquare = NO_SQUARE;
+        }
+        position.hash = position.computeHash();
+        return position;
+    }
+
+    // Rejects what the rules can't reach and the move generator doesn't expect: a missing or extra king,
+    // pawns on the back ranks, castling rights without the king and rook at home, an en passant square
+    // no pawn could just have skipped, or the side not to move left in check
+    private void validate(String fen) {
+        if (Long.bitCount(pieces(WHITE, KING)) != 1 || Long.bitCount(pieces(BLACK, KING)) != 1) {
+            throw new IllegalArgumentException("FEN needs exactly one king per side: " + fen);
+        }
+        if (((pieces(WHITE, PAWN) | pieces(BLACK, PAWN)) & 0xFF000000000000FFL) != 0) {
+            throw new IllegalArgumentException("Pawn on the first or eighth rank in FEN: " + fen);
+        }
+        int[][] castling = {{WHITE_KING_SIDE, 4, 7}, {WHITE_QUEEN_SIDE, 4, 0}, {BLACK_KING_SIDE, 60, 63}, {BLACK_QUEEN_SIDE, 60, 56}};
+        for (int[] right : castling) {
+            int colour = right[1] == 4 ? WHITE : BLACK;
+            if ((castlingRights & right[0]) != 0
+                    && (board[right[1]] != code(colour, KING) || board[right[2]] != code(colour, ROOK))) {
+                throw new IllegalArgumentException("Castling rights without the king and rook at home in FEN: " + fen);
+            }
+        }
+        if (enPassantSquare != NO_SQUARE) {
+            // The pawn that just moved two squares stands in front of the en passant square, and the squares
+            // it crossed are empty
+            int forward = whiteToMove ? -8 : 8;
+            int pawn = enPassantSquare + forward;
+            int origin = enPassantSquare - forward;
+            if (enPassantSquare >>> 3 != (whiteToMove ? 5 : 2) || board[enPassantSquare] != EMPTY
+                    || board[origin] != EMPTY || board[pawn] != code(whiteToMove ? BLACK : WHITE, PAWN)) {
+                throw new IllegalArgumentException("Bad en passant square in FEN: " + fen);
+            }
+        }
+        if (isInCheck(whiteToMove ? BLACK : WHITE)) {
+            throw new IllegalArgumentException("The side not to move is in check in FEN: " + fen);
+        }
+    }
+
+    /**
+     * Formats the position in Forsyth-Edwards Notation, the inverse of {@link #fromFen}.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int code = board[rank * 8 + file];
+                if (code == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char letter = "pnbrqk".charAt(typeOf(code));
+                fen.append(colourOf(code) == WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(whiteToMove ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KING_SIDE) != 0) fen.append('K');
+            if ((castlingRights & WHITE_QUEEN_SIDE) != 0) fen.append('Q');
+            if ((castlingRights & BLACK_KING_SIDE) != 0) fen.append('k');
+            if ((castlingRights & BLACK_QUEEN_SIDE) != 0) fen.append('q');
+        }
+        fen.append(' ').append(enPassantSquare == NO_SQUARE ? "-" : Moves.squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * Parses a square name such as {@code e4}.
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h' || name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        return (name.charAt(1) - '1') * 8 + (name.charAt(0) - 'a');
+    }
+
+    public Position copy() {
+        Position copy = new Position();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        whiteToMove = other.whiteToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        attackMaps[WHITE] = other.attackMaps[WHITE];
+        attackMaps[BLACK] = other.attackMaps[BLACK];
+        attackMapsValid = other.attackMapsValid;
+        undoSize = 0; // A copy cannot unmake moves played before it was taken
+    }
+
+    // Board coordinates used by the Swing board: row 0 is the eighth rank, column 0 is the a-file
+    public static int square(int row, int column) {
+        return (7 - row) * 8 + column;
+    }
+
+    public static int row(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    public static int code(int colour, int type) {
+        return colour * 6 + type;
+    }
+
+    public static int colour(boolean isWhite) {
+        return isWhite ? WHITE : BLACK;
+    }
+
+    public static int typeOf(int code) {
+        return code % 6;
+    }
+
+    public static int colourOf(int code) {
+        return code / 6;
+    }
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int colour, int type) {
+        return pieces[code(colour, type)];
+    }
+
+    public long occupancy(int colour) {
+        return occupancy[colour];
+    }
+
+    public long occupied() {
+        return occupancy[WHITE] | occupancy[BLACK];
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    public int sideToMove() {
+        return whiteToMove ? WHITE : BLACK;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position, kept up to date incrementally as moves are played.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Computes the Zobrist hash from scratch; {@link #hash()} always equals this.
+     */
+    public long computeHash() {
+        long key = Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        if (!whiteToMove) {
+            key ^= Zobrist.blackToMove();
+        }
+        for (int square = 0; square < 64; square++) {
+            if (board[square] != EMPTY) {
+                key ^= Zobrist.piece(board[square], square);
+            }
+        }
+        return key;
+    }
+
+    public int kingSquare(int colour) {
+        long king = pieces(colour, KING);
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Returns every piece of either colour that attacks {@code square}, with sliding attacks computed
+     * against {@code occupied} so callers can ask about hypothetical occupancies.
+     */
+    public long attackersTo(int square, long occupied) {
+        long bishops = pieces[code(WHITE, BISHOP)] | pieces[code(BLACK, BISHOP)]
+                | pieces[code(WHITE, QUEEN)] | pieces[code(BLACK, QUEEN)];
+        long rooks = pieces[code(WHITE, ROOK)] | pieces[code(BLACK, ROOK)]
+                | pieces[code(WHITE, QUEEN)] | pieces[code(BLACK, QUEEN)];
+        return (Attacks.pawn(BLACK, square) & pieces[code(WHITE, PAWN)])
+                | (Attacks.pawn(WHITE, square) & pieces[code(BLACK, PAWN)])
+                | (Attacks.knight(square) & (pieces[code(WHITE, KNIGHT)] | pieces[code(BLACK, KNIGHT)]))
+                | (Attacks.king(square) & (pieces[code(WHITE, KING)] | pieces[code(BLACK, KING)]))
+                | (Attacks.bishop(square, occupied) & bishops)
+                | (Attacks.rook(square, occupied) & rooks);
+    }
+
+    /**
+     * Checks whether any piece of {@code byColour} attacks the given square.
+     */
+    public boolean isSquareAttacked(int square, int byColour) {
+        if (Metrics.ENABLED) {
+            ATTACK_SCANS.increment();
+        }
+        return (attackersTo(square, occupied()) & occupancy[byColour]) != 0;
+    }
+
+    public boolean isInCheck(int colour) {
+        int king = kingSquare(colour);
+        return king != NO_SQUARE && isSquareAttacked(king, colour ^ 1);
+    }
+
+    /**
+     * Returns every square attacked by {@code colour}. The maps for both colours are built together on
+     * the first call after a move and then answered from the cache, so repeated attack questions about
+     * the same position (castling paths, highlighting) are single lookups.
+     */
+    public long attackMap(int colour) {
+        if (!attackMapsValid) {
+            attackMaps[WHITE] = computeAttackMap(WHITE);
+            attackMaps[BLACK] = computeAttackMap(BLACK);
+            attackMapsValid = true;
+        }
+        return attackMaps[colour];
+    }
+
+    private long computeAttackMap(int colour) {
+        long occupied = occupied();
+        long pawns = pieces(colour, PAWN);
+        long attacks = colour == WHITE
+                ? ((pawns << 7) & ~0x8080808080808080L) | ((pawns << 9) & ~0x0101010101010101L)
+                : ((pawns >>> 9) & ~0x8080808080808080L) | ((pawns >>> 7) & ~0x0101010101010101L);
+        for (long knights = pieces(colour, KNIGHT); knights != 0; knights &= knights - 1) {
+            attacks |= Attacks.knight(Long.numberOfTrailingZeros(knights));
+        }
+        for (long bishops = pieces(colour, BISHOP) | pieces(colour, QUEEN); bishops != 0; bishops &= bishops - 1) {
+            attacks |= Attacks.bishop(Long.numberOfTrailingZeros(bishops), occupied);
+        }
+        for (long rooks = pieces(colour, ROOK) | pieces(colour, QUEEN); rooks != 0; rooks &= rooks - 1) {
+            attacks |= Attacks.rook(Long.numberOfTrailingZeros(rooks), occupied);
+        }
+        long king = pieces(colour, KING);
+        if (king != 0) {
+            attacks |= Attacks.king(Long.numberOfTrailingZeros(king));
+        }
+        return attacks;
+    }
+
+    /**
+     * Castling is allowed when the right is still held, the squares between king and rook are empty,
+     * and the king neither starts on, passes through nor lands on an attacked square.
+     */
+    public boolean canCastle(int colour, boolean isKingSide) {
+        int right = colour == WHITE
+                ? (isKingSide ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE)
+                : (isKingSide ? BLACK_KING_SIDE : BLACK_QUEEN_SIDE);
+        if ((castlingRights & right) == 0) {
+            return false;
+        }
+        int king = colour == WHITE ? 4 : 60;
+        long between = isKingSide ? 0x60L << (king - 4) : 0x0EL << (king - 4);
+        if ((occupied() & between) != 0) {
+            return false;
+        }
+        // The king's square, the square it crosses and the square it lands on must all be safe
+        long path = isKingSide ? 0x70L << (king - 4) : 0x1CL << (king - 4);
+        return (attackMap(colour ^ 1) & path) == 0;
+    }
+
+    /**
+     * Plays a packed move (see {@link Moves}) without checking it, including the rook hop of a castle,
+     * the pawn taken en passant and promotion. The state needed to take it back is pushed on the undo
+     * stack, so {@link #unmakeMove()} restores the position exactly.
+     *
+     * @return the code of the captured piece, or {@link #EMPTY}
+     */
+    public int makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int moving = board[from];
+        int colour = colourOf(moving);
+        int type = typeOf(moving);
+        int captured = board[to];
+        boolean isEnPassant = type == PAWN && to == enPassantSquare;
+        boolean isCastle = type == KING && (to - from == 2 || from - to == 2);
+
+        int slot = pushUndo();
+        undoMoves[slot] = Moves.encode(from, to, Moves.promotion(move),
+                (isEnPassant ? Moves.EN_PASSANT : 0) | (isCastle ? Moves.CASTLE : 0));
+        undoState[slot] = castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+        undoHash[slot] = hash;
+
+        halfmoveClock++;
+        if (captured != EMPTY) {
+            remove(to);
+        } else if (isEnPassant) {
+            int victim = to + (colour == WHITE ? -8 : 8);
+            captured = board[victim];
+            remove(victim);
+        }
+        undoCaptured[slot] = captured;
+        remove(from);
+        put(to, Moves.promotion(move) != 0 ? code(colour, Moves.promotion(move)) : moving);
+
+        if (isCastle) {
+            // Castling, so hop the rook over the king as well
+            boolean isKingSide = to > from;
+            int rookFrom = isKingSide ? from + 3 : from - 4;
+            int rookTo = isKingSide ? from + 1 : from - 1;
+            put(rookTo, board[rookFrom]);
+            remove(rookFrom);
+        }
+
+        if (type == PAWN || captured != EMPTY) {
+            halfmoveClock = 0;
+        }
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = NO_SQUARE;
+        if (type == PAWN && (to - from == 16 || from - to == 16) && canCaptureEnPassant((from + to) >>> 1, colour)) {
+            enPassantSquare = (from + to) >>> 1;
+        }
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare) ^ Zobrist.blackToMove();
+        if (!whiteToMove) {
+            fullmoveNumber++;
+        }
+        whiteToMove = !whiteToMove;
+        return captured;
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove} or {@link #makeNullMove}.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        int slot = --undoSize;
+        int move = undoMoves[slot];
+        whiteToMove = !whiteToMove;
+        if (!whiteToMove) {
+            fullmoveNumber--;
+        }
+
+        if (move != Moves.NONE) {
+            int from = Moves.from(move);
+            int to = Moves.to(move);
+            int colour = sideToMove();
+            int moved = board[to];
+            remove(to);
+            put(from, Moves.promotion(move) != 0 ? code(colour, PAWN) : moved);
+            if (Moves.isCastle(move)) {
+                boolean isKingSide = to > from;
+                int rookFrom = isKingSide ? from + 3 : from - 4;
+                int rookTo = isKingSide ? from + 1 : from - 1;
+                put(rookFrom, board[rookTo]);
+                remove(rookTo);
+            }
+            int captured = undoCaptured[slot];
+            if (captured != EMPTY) {
+                put(Moves.isEnPassant(move) ? to + (colour == WHITE ? -8 : 8) : to, captured);
+            }
+        }
+
+        int state = undoState[slot];
+        castlingRights = state & 0xF;
+        enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        halfmoveClock = state >>> 11;
+        hash = undoHash[slot];
+    }
+
+    /**
+     * Returns how many moves can currently be taken back with {@link #unmakeMove()}.
+     */
+    public int undoDepth() {
+        return undoSize;
+    }
+
+    private int pushUndo() {
+        if (undoSize == undoMoves.length) {
+            int capacity = Math.max(256, undoMoves.length * 2);
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+            undoState = Arrays.copyOf(undoState, capacity);
+            undoHash = Arrays.copyOf(undoHash, capacity);
+        }
+        return undoSize++;
+    }
+
+    /**
+     * Passes the turn without moving, as used by null-move pruning. The en passant square is cleared.
+     * Take it back with {@link #unmakeMove()}.
+     */
+    public void makeNullMove() {
+        int slot = pushUndo();
+        undoMoves[slot] = Moves.NONE;
+        undoState[slot] = castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+        undoHash[slot] = hash;
+        if (!whiteToMove) {
+            fullmoveNumber++;
+        }
+        hash ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.blackToMove();
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock++;
+        whiteToMove = !whiteToMove;
+    }
+
+    // Whether an enemy pawn stands ready to take on the square skipped by a double push of pushedColour.
+    // The en passant square is only recorded then, so otherwise identical positions hash the same.
+    private boolean canCaptureEnPassant(int skipped, int pushedColour) {
+        return (Attacks.pawn(pushedColour, skipped) & pieces(pushedColour ^ 1, PAWN)) != 0;
+    }
+
+    private void put(int square, int code) {
+        attackMapsValid = false;
+        long bit = 1L << square;
+        pieces[code] |= bit;
+        occupancy[colourOf(code)] |= bit;
+        board[square] = code;
+        hash ^= Zobrist.piece(code, square);
+    }
+
+    private void remove(int square) {
+        attackMapsValid = false;
+        int code = board[square];
+        long bit = 1L << square;
+        pieces[code] &= ~bit;
+        occupancy[colourOf(code)] &= ~bit;
+        board[square] = EMPTY;
+        hash ^= Zobrist.piece(code, square);
+    }
+}
@@ -4,12 +4,16 @@
 public record Queen(boolean isWhite) implements Piece {
 
     @Override
-    public boolean isValidMove(int currentX, int currentY, int newX, int newY, Piece[][] board, ChessBoard chessBoard) {
-        // Combining the logic of Rook and Bishop
-        return new Rook(isWhite).isValidMove(currentX, currentY, newX, newY, board, chessBoard) ||
-                new Bishop(isWhite).isValidMove(currentX, currentY, newX, newY, board, chessBoard);
+    public boolean isValidMove(Position position, int from, int to) {
+        // Combining the attacks of Rook and Bishop
+        long targets = Attacks.queen(from, position.occupied()) & ~position.occupancy(Position.colour(isWhite));
+        return (targets & (1L << to)) != 0;
     }
 
+    @Override
+    public int type() {
+        return Position.QUEEN;
+    }
 
     @Override
     public String getImageName() {
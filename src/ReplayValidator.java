@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Headless batch check of PGN archives: replays every game on a fork-join pool and reports, per game,
+ * whether each move was legal, whether the result tag agrees with a final checkmate or stalemate, and
+ * the Zobrist hash of the final position.
+ * <p>
+ * Each SAN move is resolved against the legal move generator and then re-checked with the
+ * {@link Piece#isValidMove} rule of the moving piece, so a disagreement between the two shows up as a
+ * rule error rather than going unnoticed.
+ * <p>
+ * Usage: {@code ReplayValidator <file.pgn> [--threads n] [--quiet]}. With {@code --quiet} only games
+ * with problems are listed.
+ */
+public final class ReplayValidator {
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Outcome of replaying one game.
+     *
+     * @param index     Zero-based position of the game in the file
+     * @param plies     Moves replayed before the game ended or the first problem
+     * @param status    {@link Status#OK} or the first problem found
+     * @param detail    The offending move or result, empty when OK
+     * @param finalHash Zobrist hash of the last position reached
+     */
+    public record GameReport(long index, int plies, Status status, String detail, long finalHash) {
+        @Override
+        public String toString() {
+            return String.format("game %d: %s%s after %d plies, hash %016x",
+                    index + 1, status, detail.isEmpty() ? "" : " (" + detail + ")", plies, finalHash);
+        }
+    }
+
+    public enum Status {
+        OK, BAD_START, ILLEGAL_MOVE, RULE_MISMATCH, WRONG_RESULT
+    }
+
+    private ReplayValidator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: ReplayValidator <file.pgn> [--threads n] [--quiet]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean quiet = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--quiet")) {
+                quiet = true;
+            }
+        }
+
+        long games = 0;
+        long moves = 0;
+        long[] problems = new long[Status.values().length];
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        // Keep a few batches in flight per thread; joining the oldest first keeps the report in file order
+        ArrayDeque<ForkJoinTask<List<GameReport>>> inFlight = new ArrayDeque<>();
+        try (PgnReader reader = PgnReader.open(Path.of(args[0]))) {
+            List<PgnGame> batch = new ArrayList<>(BATCH_SIZE);
+            for (PgnGame game = reader.next(); ; game = reader.next()) {
+                if (game != null) {
+                    batch.add(game);
+                }
+                if (batch.size() == BATCH_SIZE || game == null && !batch.isEmpty()) {
+                    inFlight.add(pool.submit(replayAll(batch, games)));
+                    games += batch.size();
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+                while (!inFlight.isEmpty() && (inFlight.size() > threads * 4 || game == null)) {
+                    for (GameReport report : inFlight.poll().join()) {
+                        moves += report.plies();
+                        problems[report.status().ordinal()]++;
+                        if (!quiet || report.status() != Status.OK) {
+                            System.out.println(report);
+                        }
+                    }
+                }
+                if (game == null) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves in %.2f s on %d threads: %.0f games/s, %.0f moves/s%n",
+                games, moves, seconds, threads, games / seconds, moves / seconds);
+        for (Status status : Status.values()) {
+            System.out.println(status + ": " + problems[status.ordinal()]);
+        }
+    }
+
+    private static Callable<List<GameReport>> replayAll(List<PgnGame> batch, long firstIndex) {
+        return () -> {
+            List<GameReport> reports = new ArrayList<>(batch.size());
+            MoveList legal = new MoveList();
+            for (int i = 0; i < batch.size(); i++) {
+                reports.add(replay(batch.get(i), firstIndex + i, legal));
+            }
+            return reports;
+        };
+    }
+
+    /**
+     * Replays one game, stopping at the first problem.
+     */
+    public static GameReport replay(PgnGame game, long index, MoveList legal) {
+        Position position;
+        try {
+            position = game.startPosition();
+        } catch (IllegalArgumentException e) {
+            return new GameReport(index, 0, Status.BAD_START, e.getMessage(), 0L);
+        }
+        List<String> moves = game.moves();
+        for (int ply = 0; ply < moves.size(); ply++) {
+            MoveGenerator.generateLegal(position, legal);
+            int move;
+            try {
+                move = San.parse(position, moves.get(ply), legal);
+            } catch (IllegalArgumentException e) {
+                return new GameReport(index, ply, Status.ILLEGAL_MOVE, moves.get(ply), position.hash());
+            }
+            int from = Moves.from(move);
+            int mover = position.sideToMove();
+            if (!Piece.of(position.pieceAt(from)).isValidMove(position, from, Moves.to(move))) {
+                return new GameReport(index, ply, Status.RULE_MISMATCH, moves.get(ply), position.hash());
+            }
+            position.makeMove(move);
+            if (position.isInCheck(mover)) {
+                position.unmakeMove();
+                return new GameReport(index, ply, Status.RULE_MISMATCH, moves.get(ply), position.hash());
+            }
+        }
+
+        MoveGenerator.generateLegal(position, legal);
+        String expected = null;
+        if (legal.isEmpty()) {
+            expected = !position.isInCheck(position.sideToMove()) ? "1/2-1/2" : position.isWhiteToMove() ? "0-1" : "1-0";
+        }
+        // Games may also end by resignation, agreement or time, so only a finished board pins the result
+        if (expected != null && !expected.equals(game.result()) && !game.result().equals("*")) {
+            return new GameReport(index, moves.size(), Status.WRONG_RESULT, game.result() + ", board says " + expected, position.hash());
+        }
+        return new GameReport(index, moves.size(), Status.OK, "", position.hash());
+    }
+}
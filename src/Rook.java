@@ -4,30 +4,16 @@
 public record Rook(boolean isWhite) implements Piece {
 
     @Override
-    public boolean isValidMove(int currentX, int currentY, int newX, int newY, Piece[][] board, ChessBoard chessBoard) {
-        boolean isDestinationOccupiedSameColor = board[newX][newY] != null && board[newX][newY].isWhite() == this.isWhite;
-
-        if (isDestinationOccupiedSameColor || (currentX != newX && currentY != newY)) {
-            return false;
-        }
-
-        int xDirection = currentX == newX ? 0 : (newX - currentX) / Math.abs(newX - currentX);
-        int yDirection = currentY == newY ? 0 : (newY - currentY) / Math.abs(newY - currentY);
-
-        int distance = currentX == newX ? Math.abs(newY - currentY) : Math.abs(newX - currentX);
-
-        for (int i = 1; i < distance; i++) {
-            int xCheck = currentX + i * xDirection;
-            int yCheck = currentY + i * yDirection;
-
-            if (board[xCheck][yCheck] != null) {
-                return false; // There is a piece in the way
-            }
-        }
-
-        return true;
+    public boolean isValidMove(Position position, int from, int to) {
+        // Sliding attacks stop at the first piece in the way
+        long targets = Attacks.rook(from, position.occupied()) & ~position.occupancy(Position.colour(isWhite));
+        return (targets & (1L << to)) != 0;
     }
 
+    @Override
+    public int type() {
+        return Position.ROOK;
+    }
 
     @Override
     public String getImageName() {
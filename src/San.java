@@ -0,0 +1,160 @@
+/**
+ * Standard Algebraic Notation, as used in PGN movetext: {@code e4}, {@code Nbd7}, {@code exd8=Q+},
+ * {@code O-O-O#}.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move that {@code san} names in {@code position}. Check and annotation suffixes
+     * ({@code + # ! ?}) are ignored, and castling may be written with zeros.
+     *
+     * @throws IllegalArgumentException if the text names no legal move, or more than one
+     */
+    public static int parse(Position position, String san) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        return parse(position, san, moves);
+    }
+
+    /**
+     * Like {@link #parse(Position, String)}, matching against already generated legal moves.
+     */
+    public static int parse(Position position, String san, MoveList legalMoves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int king = position.kingSquare(position.sideToMove());
+            int to = text.length() == 3 ? king + 2 : king - 2;
+            return matchSingle(position, san, legalMoves, Position.KING, to, 0, -1, -1);
+        }
+
+        int type = Position.PAWN;
+        int start = 0;
+        if (!text.isEmpty() && PIECE_LETTERS.indexOf(text.charAt(0)) > 0) {
+            type = PIECE_LETTERS.indexOf(text.charAt(0));
+            start = 1;
+        }
+        int promotion = 0;
+        int promotionAt = text.indexOf('=');
+        if (promotionAt >= 0 || type == Position.PAWN && end > 0 && PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)) > 0) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(text.length() - 1));
+            text = text.substring(0, promotionAt >= 0 ? promotionAt : text.length() - 1);
+        }
+        if (text.length() - start < 2) {
+            throw new IllegalArgumentException("Bad SAN move: " + san);
+        }
+        int to = Position.parseSquare(text.substring(text.length() - 2));
+
+        // Whatever sits between the piece letter and the destination (minus an 'x') disambiguates
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Bad SAN move: " + san);
+            }
+        }
+        return matchSingle(position, san, legalMoves, type, to, promotion, fromFile, fromRank);
+    }
+
+    private static int matchSingle(Position position, String san, MoveList moves, int type, int to, int promotion, int fromFile, int fromRank) {
+        int found = Moves.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Moves.from(move);
+            if (Moves.to(move) == to && Moves.promotion(move) == promotion
+                    && Position.typeOf(position.pieceAt(from)) == type
+                    && (fromFile < 0 || (from & 7) == fromFile)
+                    && (fromRank < 0 || (from >>> 3) == fromRank)) {
+                if (found != Moves.NONE) {
+                    throw new IllegalArgumentException("Ambiguous SAN move: " + san);
+                }
+                found = move;
+            }
+        }
+        if (found == Moves.NONE) {
+            throw new IllegalArgumentException("Illegal SAN move: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Formats a legal move of {@code position} in SAN, including the check or mate suffix.
+     */
+    public static String format(Position position, int move) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        return format(position, move, moves);
+    }
+
+    /**
+     * Like {@link #format(Position, int)}, disambiguating against already generated legal moves.
+     */
+    public static String format(Position position, int move, MoveList legalMoves) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int type = Position.typeOf(position.pieceAt(from));
+        StringBuilder san = new StringBuilder(8);
+
+        if (Moves.isCastle(move) || type == Position.KING && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == Position.PAWN) {
+            if (Moves.isCapture(move)) {
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            san.append(Moves.squareName(to));
+            if (Moves.promotion(move) != 0) {
+                san.append('=').append(PIECE_LETTERS.charAt(Moves.promotion(move)));
+            }
+        } else {
+            san.append(PIECE_LETTERS.charAt(type));
+            boolean ambiguous = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int other = legalMoves.get(i);
+                int otherFrom = Moves.from(other);
+                if (other != move && Moves.to(other) == to && otherFrom != from
+                        && Position.typeOf(position.pieceAt(otherFrom)) == type) {
+                    ambiguous = true;
+                    sameFile |= (otherFrom & 7) == (from & 7);
+                    sameRank |= (otherFrom >>> 3) == (from >>> 3);
+                }
+            }
+            if (ambiguous) {
+                if (!sameFile) {
+                    san.append((char) ('a' + (from & 7)));
+                } else if (!sameRank) {
+                    san.append((char) ('1' + (from >>> 3)));
+                } else {
+                    san.append(Moves.squareName(from));
+                }
+            }
+            if (Moves.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(Moves.squareName(to));
+        }
+
+        position.makeMove(move);
+        if (position.isInCheck(position.sideToMove())) {
+            MoveList replies = new MoveList();
+            MoveGenerator.generateLegal(position, replies);
+            san.append(replies.isEmpty() ? '#' : '+');
+        }
+        position.unmakeMove();
+        return san.toString();
+    }
+}
@@ -0,0 +1,548 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Iterative-deepening principal variation search with a quiescence search at the leaves.
+ * <p>
+ * Moves are ordered transposition-table move first, then captures by MVV-LVA (most valuable victim,
+ * least valuable attacker), then killer moves, then quiet moves by history score. Null-move pruning
+ * skips a turn to prove a position is already good enough for a cutoff. The depth, node and time
+ * budgets in {@link Limits} are hard limits: the search checks them as it goes and falls back to the
+ * result of the last completed iteration.
+ * <p>
+ * With more than one thread the engine runs Lazy SMP: helper threads search the same root alongside
+ * the main thread, sharing only the transposition table. Half of them start one ply deeper, so they
+ * fill the table with results the main thread then finds ready-made. The main thread's result is
+ * the one reported.
+ * <p>
+ * Leaves are scored by {@link Evaluation}, or by an {@link NnueNetwork} once one is set; each thread then
+ * keeps its own {@link NnueEvaluator} in step with the moves it searches.
+ */
+public final class SearchEngine {
+    public static final int MATE = 32_000;
+    public static final int MAX_PLY = 64;
+
+    private static final int INFINITY = MATE + 1;
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final TranspositionTable table;
+    private volatile boolean stopped;
+    private volatile boolean helpersStopped;
+    private int threads = 1;
+    private volatile EndgameTablebase tablebase;
+    private volatile NnueNetwork network;
+    private ExecutorService helperPool;
+    private Consumer<SearchResult> listener = result -> {
+    };
+
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Sets how many threads search, including the calling thread. Takes effect on the next search.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the tablebase consulted for positions with few pieces, or null for none.
+     */
+    public void setTablebase(EndgameTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Sets the network that scores leaves, or null to use {@link Evaluation}. Takes effect on the next search.
+     */
+    public void setNetwork(NnueNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Receives the result of every completed iteration, e.g. to print UCI {@code info} lines.
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to finish as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Searches {@code position} within {@code limits}. The position is not modified.
+     */
+    public SearchResult bestMove(Position position, Limits limits) {
+        SearchResult known = tablebaseResult(position);
+        if (known != null) {
+            listener.accept(known);
+            return known;
+        }
+        stopped = false;
+        helpersStopped = false;
+        table.newSearch();
+
+        List<Searcher> searchers = new ArrayList<>();
+        for (int id = 0; id < threads; id++) {
+            searchers.add(new Searcher(id, position, limits, searchers));
+        }
+        List<Future<?>> helpers = new ArrayList<>();
+        for (Searcher helper : searchers.subList(1, searchers.size())) {
+            helpers.add(helperPool().submit(helper::iterate));
+        }
+
+        SearchResult result = searchers.get(0).iterate();
+
+        helpersStopped = true;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        long[] threadNodes = new long[searchers.size()];
+        for (int i = 0; i < threadNodes.length; i++) {
+            threadNodes[i] = searchers.get(i).nodes;
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), Arrays.stream(threadNodes).sum(),
+                result.elapsedMillis(), result.principalVariation(), threadNodes);
+    }
+
+    /**
+     * Shuts down the helper threads. The engine can still search afterwards on the calling thread.
+     */
+    public synchronized void close() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+    }
+
+    private SearchResult tablebaseResult(Position position) {
+        EndgameTablebase tables = tablebase;
+        if (tables == null || Long.bitCount(position.occupied()) > EndgameTablebase.MAX_PIECES) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Position root = position.copy();
+        EndgameTablebase.Probe probe = tables.probe(root);
+        int move = tables.bestMove(root);
+        if (probe == null || move == Moves.NONE) {
+            return null;
+        }
+        return new SearchResult(move, tablebaseScore(probe, 0), 1, 1, (System.nanoTime() - start) / 1_000_000,
+                new int[]{move}, new long[]{1});
+    }
+
+    // Exact mate scores while they fit the search's mate range, otherwise a win worse than any mate
+    private static int tablebaseScore(EndgameTablebase.Probe probe, int ply) {
+        int plies = Math.min(ply + probe.pliesToMate(), MAX_PLY + 1);
+        return switch (probe.wdl()) {
+            case WIN -> MATE - plies;
+            case LOSS -> -MATE + plies;
+            case DRAW -> 0;
+        };
+    }
+
+    private synchronized ExecutorService helperPool() {
+        if (helperPool == null) {
+            helperPool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return helperPool;
+    }
+
+    private final class Searcher {
+        private final Position position = new Position();
+        private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+        private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.CAPACITY];
+        private final int[][] killers = new int[MAX_PLY + 1][2];
+        private final int[][] history = new int[12][64];
+        private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+        private final int[] pvLength = new int[MAX_PLY + 1];
+
+        private final int id;
+        private final List<Searcher> searchers;
+        private final Limits limits;
+        private final EndgameTablebase tablebase = SearchEngine.this.tablebase;
+        private final NnueEvaluator nnue; // Null when scoring with the tables
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private long nodes;
+        private volatile long publishedNodes; // Copy of nodes other threads may read while searching
+        private boolean aborted;
+        private boolean canAbort;
+
+        Searcher(int id, Position root, Limits limits, List<Searcher> searchers) {
+            this.id = id;
+            this.searchers = searchers;
+            this.limits = limits;
+            this.deadlineNanos = limits.moveTimeMillis() > 0 ? startNanos + limits.moveTimeMillis() * 1_000_000 : 0;
+            for (int i = 0; i < moveLists.length; i++) {
+                moveLists[i] = new MoveList();
+            }
+            position.copyFrom(root);
+            NnueNetwork network = SearchEngine.this.network;
+            nnue = network == null ? null : new NnueEvaluator(network, MAX_PLY);
+            if (nnue != null) {
+                nnue.refresh(position);
+            }
+        }
+
+        SearchResult iterate() {
+            int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY) : MAX_PLY;
+            SearchResult result = new SearchResult(Moves.NONE, 0, 0, 0, 0, new int[0], new long[0]);
+            boolean isHelper = id > 0;
+            for (int depth = 1 + (isHelper ? id % 2 : 0); depth <= maxDepth; depth++) {
+                canAbort = isHelper || depth > 1; // The main thread always finishes depth 1 so there is a move to play
+                int score = search(0, depth, -INFINITY, INFINITY, false);
+                if (aborted) {
+                    break;
+                }
+                int[] line = Arrays.copyOf(pv[0], pvLength[0]);
+                result = new SearchResult(line.length > 0 ? line[0] : Moves.NONE, score, depth, totalNodes(), elapsedMillis(), line, new long[0]);
+                if (isHelper) {
+                    continue;
+                }
+                listener.accept(result);
+
+                if (line.length == 0 || result.isMate() && MATE - Math.abs(score) <= depth) {
+                    break; // No legal moves, or a forced mate was found within the full-width horizon
+                }
+                // Another iteration takes several times longer, so don't start one that cannot finish
+                if (limits.moveTimeMillis() > 0 && elapsedMillis() * 2 > limits.moveTimeMillis()) {
+                    break;
+                }
+            }
+            publishedNodes = nodes;
+            return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, elapsedMillis(),
+                    result.principalVariation(), new long[0]);
+        }
+
+        private long totalNodes() {
+            long total = 0;
+            for (Searcher searcher : searchers) {
+                total += searcher == this ? nodes : searcher.publishedNodes;
+            }
+            return total;
+        }
+
+        private int search(int ply, int depth, int alpha, int beta, boolean allowNull) {
+            pvLength[ply] = ply;
+            if (ply > 0 && position.halfmoveClock() >= 100) {
+                return 0;
+            }
+            if (depth <= 0) {
+                return quiesce(ply, alpha, beta);
+            }
+            if (countNode()) {
+                return 0;
+            }
+            if (ply >= MAX_PLY) {
+                return evaluate();
+            }
+            if (ply > 0 && tablebase != null && Long.bitCount(position.occupied()) <= EndgameTablebase.MAX_PIECES) {
+                EndgameTablebase.Probe probe = tablebase.probe(position);
+                if (probe != null) {
+                    return tablebaseScore(probe, ply);
+                }
+            }
+
+            boolean pvNode = beta - alpha > 1;
+            long entry = table.probe(position.hash());
+            int ttMove = Moves.NONE;
+            if (entry != TranspositionTable.MISS) {
+                ttMove = TranspositionTable.move(entry);
+                if (!pvNode && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                            || bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                        return score;
+                    }
+                }
+            }
+
+            int us = position.sideToMove();
+            boolean inCheck = position.isInCheck(us);
+            if (inCheck) {
+                depth++; // Check extension
+            }
+
+            if (allowNull && !pvNode && !inCheck && depth >= 3 && hasPieces(position, us)
+                    && evaluate() >= beta) {
+                makeNullMove();
+                int reduction = 2 + depth / 4;
+                int score = -search(ply + 1, depth - 1 - reduction, -beta, -beta + 1, false);
+                unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return score >= MATE - MAX_PLY ? beta : score; // Don't trust mate scores from a skipped turn
+                }
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegal(position, moves);
+            if (moves.isEmpty()) {
+                return inCheck ? -MATE + ply : 0;
+            }
+            scoreMoves(ply, moves, ttMove);
+
+            int originalAlpha = alpha;
+            int bestScore = -INFINITY;
+            int bestMove = Moves.NONE;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickNext(ply, moves, i);
+                makeMove(move);
+
+                int score;
+                if (i == 0) {
+                    score = -search(ply + 1, depth - 1, -beta, -alpha, true);
+                } else {
+                    // Prove the move is no better than the best so far with a null window first
+                    score = -search(ply + 1, depth - 1, -alpha - 1, -alpha, true);
+                    if (score > alpha && score < beta) {
+                        score = -search(ply + 1, depth - 1, -beta, -alpha, true);
+                    }
+                }
+                unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePrincipalVariation(ply, move);
+                        if (score >= beta) {
+                            if (!Moves.isCapture(move) && Moves.promotion(move) == 0) {
+                                rememberQuietCutoff(ply, move, depth);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                    : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+            table.store(position.hash(), bestMove, toTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        private int quiesce(int ply, int alpha, int beta) {
+            pvLength[ply] = ply;
+            if (countNode()) {
+                return 0;
+            }
+            if (ply >= MAX_PLY) {
+                return evaluate();
+            }
+
+            boolean inCheck = position.isInCheck(position.sideToMove());
+            if (!inCheck) {
+                int standPat = evaluate();
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                alpha = Math.max(alpha, standPat);
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegal(position, moves);
+            if (inCheck && moves.isEmpty()) {
+                return -MATE + ply;
+            }
+            scoreMoves(ply, moves, Moves.NONE);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickNext(ply, moves, i);
+                // Out of check every evasion is searched, otherwise only captures and queen promotions
+                if (!inCheck && !Moves.isCapture(move) && Moves.promotion(move) != Position.QUEEN) {
+                    continue;
+                }
+                makeMove(move);
+                int score = -quiesce(ply + 1, -beta, -alpha);
+                unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        // A loaded network can score anything, so keep it clear of the mate scores
+        private int evaluate() {
+            if (nnue == null) {
+                return Evaluation.evaluate(position);
+            }
+            int limit = MATE - MAX_PLY - 1;
+            return Math.max(-limit, Math.min(nnue.evaluate(position), limit));
+        }
+
+        // Moves go through the evaluator when there is one, so its accumulators follow the position
+        private void makeMove(int move) {
+            if (nnue == null) {
+                position.makeMove(move);
+            } else {
+                nnue.makeMove(position, move);
+            }
+        }
+
+        private void makeNullMove() {
+            if (nnue == null) {
+                position.makeNullMove();
+            } else {
+                nnue.makeNullMove(position);
+            }
+        }
+
+        private void unmakeMove() {
+            if (nnue == null) {
+                position.unmakeMove();
+            } else {
+                nnue.unmakeMove(position);
+            }
+        }
+
+        private void scoreMoves(int ply, MoveList moves, int ttMove) {
+            int[] scores = moveScores[ply];
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                int from = Moves.from(move);
+                int to = Moves.to(move);
+                int attacker = Position.typeOf(position.pieceAt(from));
+                if (move == ttMove) {
+                    scores[i] = 1_000_000;
+                } else if (Moves.isCapture(move)) {
+                    int victim = Moves.isEnPassant(move) ? Position.PAWN : Position.typeOf(position.pieceAt(to));
+                    scores[i] = 500_000 + Evaluation.PIECE_VALUES[victim] * 8 - attacker;
+                } else if (Moves.promotion(move) == Position.QUEEN) {
+                    scores[i] = 400_000;
+                } else if (move == killers[ply][0]) {
+                    scores[i] = 300_001;
+                } else if (move == killers[ply][1]) {
+                    scores[i] = 300_000;
+                } else {
+                    scores[i] = history[position.pieceAt(from)][to];
+                }
+            }
+        }
+
+        // Selection sort step: swap the best remaining move into slot i
+        private int pickNext(int ply, MoveList moves, int i) {
+            int[] scores = moveScores[ply];
+            int best = i;
+            for (int j = i + 1; j < moves.size(); j++) {
+                if (scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            if (best != i) {
+                int move = moves.get(best);
+                moves.set(best, moves.get(i));
+                moves.set(i, move);
+                int score = scores[best];
+                scores[best] = scores[i];
+                scores[i] = score;
+            }
+            return moves.get(i);
+        }
+
+        private void rememberQuietCutoff(int ply, int move, int depth) {
+            if (killers[ply][0] != move) {
+                killers[ply][1] = killers[ply][0];
+                killers[ply][0] = move;
+            }
+            int[] scores = history[position.pieceAt(Moves.from(move))];
+            scores[Moves.to(move)] = Math.min(scores[Moves.to(move)] + depth * depth, 200_000);
+        }
+
+        private void updatePrincipalVariation(int ply, int move) {
+            pv[ply][ply] = move;
+            System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+            pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+        }
+
+        /**
+         * Counts a node and checks the budget.
+         *
+         * @return true if the search must unwind now
+         */
+        private boolean countNode() {
+            nodes++;
+            boolean checkpoint = (nodes & (CHECK_INTERVAL - 1)) == 0;
+            if (checkpoint) {
+                publishedNodes = nodes;
+            }
+            if (canAbort && !aborted) {
+                if (stopped || id > 0 && helpersStopped) {
+                    aborted = true;
+                } else if (limits.nodes() > 0 && (id == 0 ? nodes : 0) >= limits.nodes()
+                        || checkpoint && limits.nodes() > 0 && totalNodes() >= limits.nodes()) {
+                    aborted = true;
+                } else if (checkpoint && deadlineNanos != 0 && System.nanoTime() >= deadlineNanos) {
+                    aborted = true;
+                }
+            }
+            return aborted;
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    private static boolean hasPieces(Position position, int colour) {
+        return (position.occupancy(colour) & ~position.pieces(colour, Position.PAWN) & ~position.pieces(colour, Position.KING)) != 0;
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay valid in other lines
+    private static int toTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score + ply : score <= -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score - ply : score <= -MATE + MAX_PLY ? score + ply : score;
+    }
+}
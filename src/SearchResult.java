@@ -0,0 +1,34 @@
+/**
+ * Outcome of a completed search iteration.
+ *
+ * @param bestMove           Packed move (see {@link Moves}), or {@link Moves#NONE} if there is no legal move
+ * @param score              Centipawns from the side to move's point of view; see {@link SearchEngine#MATE}
+ * @param depth              Deepest fully searched iteration
+ * @param nodes              Nodes visited, including quiescence search
+ * @param elapsedMillis      Wall-clock time since the search started
+ * @param principalVariation Expected line of play, starting with the best move
+ * @param threadNodes        Nodes visited by each search thread, main thread first (empty for a single
+ *                           iteration's interim result)
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis, int[] principalVariation,
+                           long[] threadNodes) {
+
+    public long nodesPerSecond() {
+        return elapsedMillis == 0 ? nodes * 1000 : nodes * 1000 / elapsedMillis;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= SearchEngine.MATE - SearchEngine.MAX_PLY;
+    }
+
+    public String principalVariationText() {
+        StringBuilder text = new StringBuilder();
+        for (int move : principalVariation) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(Moves.toUci(move));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link GameServer}: opens many games, then has client threads play random legal moves in
+ * them over HTTP and reports the round-trip and server-side move-apply latency percentiles. Each client
+ * plays its own share of the games in turn, so every move it sends is legal; finished games are deleted
+ * and replaced, keeping the number of open games constant.
+ * <p>
+ * Without {@code --url} a server is started in the same JVM with {@code --threads} handler threads.
+ * <p>
+ * Usage: {@code ServerLoadTest [--url http://host:port] [--sessions n] [--clients n] [--moves n]
+ * [--threads n]}
+ */
+public final class ServerLoadTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String url;
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final AtomicLong movesLeft = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private ServerLoadTest(String url) {
+        this.url = url;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int sessions = 10_000;
+        int clients = 64;
+        long moves = 200_000;
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--sessions" -> sessions = Integer.parseInt(args[i + 1]);
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--moves" -> moves = Long.parseLong(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                default -> {
+                    System.out.println("Usage: ServerLoadTest [--url http://host:port] [--sessions n] [--clients n] [--moves n] [--threads n]");
+                    return;
+                }
+            }
+        }
+        GameServer server = url == null ? GameServer.start(0, threads) : null;
+        if (server != null) {
+            url = "http://localhost:" + server.port();
+        }
+        try {
+            new ServerLoadTest(url).run(sessions, clients, moves, server);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run(int sessions, int clients, long moves, GameServer server) throws Exception {
+        long heapBefore = usedHeap();
+        List<List<Game>> shares = new ArrayList<>();
+        runClients(clients, client -> {
+            List<Game> games = new ArrayList<>();
+            for (int i = client; i < sessions; i += clients) {
+                games.add(create());
+            }
+            synchronized (shares) {
+                shares.add(games);
+            }
+        });
+        System.out.printf("Opened %d games with %d clients%n", sessions, clients);
+        if (server != null) {
+            System.out.printf("Server heap grew by about %.1f MB (%.1f KB per game)%n",
+                    (usedHeap() - heapBefore) / 1e6, (usedHeap() - heapBefore) / 1e3 / sessions);
+        }
+
+        // Warm up the JIT, then time the real run from a clean slate
+        movesLeft.set(Math.min(moves / 10, 20_000));
+        runClients(shares.size(), client -> play(shares.get(client), client));
+        roundTrips.reset();
+        if (server != null) {
+            server.moveLatency().reset();
+        }
+        movesLeft.set(moves);
+        long start = System.nanoTime();
+        runClients(shares.size(), client -> play(shares.get(client), client));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d moves in %.2f s: %.0f moves/s, %d games finished, %d errors%n",
+                roundTrips.count(), seconds, roundTrips.count() / seconds, gamesFinished.get(), errors.get());
+        System.out.println("Round trip: " + roundTrips);
+        if (server != null) {
+            System.out.println("Move apply: " + server.moveLatency());
+        } else {
+            System.out.println("Server stats: " + send(HttpRequest.newBuilder(URI.create(url + "/stats")).GET()).body());
+        }
+    }
+
+    private interface ClientTask {
+        void run(int client) throws Exception;
+    }
+
+    private static void runClients(int clients, ClientTask task) throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    task.run(client);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "load-client-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+
+    private void play(List<Game> games, int client) throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(client);
+        for (int turn = 0; !games.isEmpty() && movesLeft.getAndDecrement() > 0; turn++) {
+            int index = turn % games.size();
+            Game game = games.get(index);
+            String move = game.legalMoves.get(random.nextInt(game.legalMoves.size()));
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(url + "/games/" + game.id + "/moves"))
+                    .POST(HttpRequest.BodyPublishers.ofString(move)));
+            roundTrips.recordNanos(System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                errors.incrementAndGet();
+                continue;
+            }
+            game = Game.parse(response.body());
+            if (game.over) {
+                gamesFinished.incrementAndGet();
+                send(HttpRequest.newBuilder(URI.create(url + "/games/" + game.id)).DELETE());
+                game = create();
+            }
+            games.set(index, game);
+        }
+    }
+
+    private Game create() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(url + "/games"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        if (response.statusCode() != 201) {
+            throw new IOException("Could not open a game: " + response.statusCode() + " " + response.body());
+        }
+        return Game.parse(response.body());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * What a client needs to know about one of its games, picked out of the server's JSON.
+     */
+    private record Game(long id, boolean over, List<String> legalMoves) {
+        static Game parse(String json) {
+            int idStart = json.indexOf("\"id\":") + 5;
+            long id = Long.parseLong(json.substring(idStart, json.indexOf(',', idStart)));
+            boolean over = !json.contains("\"status\":\"ONGOING\"");
+            int movesStart = json.indexOf("\"legalMoves\":[") + 14;
+            List<String> legalMoves = new ArrayList<>();
+            for (String move : json.substring(movesStart, json.indexOf(']', movesStart)).split(",")) {
+                if (move.length() > 2) {
+                    legalMoves.add(move.substring(1, move.length() - 1));
+                }
+            }
+            return new Game(id, over, legalMoves);
+        }
+    }
+}
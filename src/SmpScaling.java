@@ -0,0 +1,73 @@
+import java.util.List;
+
+/**
+ * Measures how Lazy SMP search scales with thread count: the depth reached in a fixed time, the time
+ * needed to reach a fixed depth (and the speedup over one thread), and how evenly nodes spread over
+ * the threads.
+ * <p>
+ * Usage: {@code SmpScaling [maxThreads] [millisPerPosition] [fixedDepth] [hashMegabytes]}
+ */
+public final class SmpScaling {
+    private static final List<String> POSITIONS = List.of(
+            Perft.START_FEN,
+            Benchmarks.KIWIPETE,
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    );
+
+    private SmpScaling() {
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int fixedDepth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int hashMegabytes = args.length > 3 ? Integer.parseInt(args[3]) : 128;
+
+        // Let the JIT compile the search before anything is timed
+        SearchEngine warmup = new SearchEngine(new TranspositionTable(hashMegabytes));
+        for (String fen : POSITIONS) {
+            warmup.bestMove(Position.fromFen(fen), Limits.moveTime(millis / 2));
+        }
+
+        System.out.printf("%-8s %10s %14s %14s %10s  %s%n", "threads", "avg depth", "nps", "time to d" + fixedDepth, "speedup", "nodes per thread");
+        long baselineMillis = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            SearchEngine engine = new SearchEngine(new TranspositionTable(hashMegabytes));
+            engine.setThreads(threads);
+
+            int depthSum = 0;
+            long nodes = 0;
+            long elapsed = 0;
+            long[] threadNodes = new long[threads];
+            for (String fen : POSITIONS) {
+                engine.table().clear();
+                SearchResult result = engine.bestMove(Position.fromFen(fen), Limits.moveTime(millis));
+                depthSum += result.depth();
+                nodes += result.nodes();
+                elapsed += result.elapsedMillis();
+                for (int i = 0; i < threads; i++) {
+                    threadNodes[i] += result.threadNodes()[i];
+                }
+            }
+
+            long timeToDepth = 0;
+            for (String fen : POSITIONS) {
+                engine.table().clear();
+                timeToDepth += engine.bestMove(Position.fromFen(fen), Limits.depth(fixedDepth)).elapsedMillis();
+            }
+            engine.close();
+            if (threads == 1) {
+                baselineMillis = timeToDepth;
+            }
+
+            StringBuilder perThread = new StringBuilder();
+            for (long count : threadNodes) {
+                perThread.append(count).append(' ');
+            }
+            System.out.printf("%-8d %10.2f %14d %12d ms %9.2fx  %s%n", threads, (double) depthSum / POSITIONS.size(),
+                    elapsed == 0 ? 0 : nodes * 1000 / elapsed, timeToDepth,
+                    timeToDepth == 0 ? 0 : (double) baselineMillis / timeToDepth, perThread.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import javax.sound.sampled.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the game's sound effects from a small pool of preloaded clips on a background thread.
+ * <p>
+ * Each sound is decoded once. A sound with no resource of its own reuses the click sound at a different
+ * pitch. Requests are queued to a single audio thread; if the queue is full the oldest request is
+ * dropped, and if every clip of a sound is still playing the new request is skipped, so fast play never
+ * stacks sounds up or blocks the caller.
+ */
+public final class SoundService implements AutoCloseable {
+    private static final int CLIPS_PER_SOUND = 3;
+
+    public enum Sound {
+        CLICK("click-sound.wav", 1.0f),
+        MOVE("move-sound.wav", 0.85f),
+        CAPTURE("capture-sound.wav", 0.65f),
+        CHECK("check-sound.wav", 1.35f),
+        GAME_END("game-end-sound.wav", 0.5f);
+
+        private final String resource; // Sound file looked up on the classpath
+        private final float pitch; // Playback rate applied when falling back to the click sound
+
+        Sound(String resource, float pitch) {
+            this.resource = resource;
+            this.pitch = pitch;
+        }
+    }
+
+    private record Audio(AudioFormat format, byte[] data) {
+    }
+
+    private final Map<Sound, Clip[]> pools = new EnumMap<>(Sound.class);
+    private final ThreadPoolExecutor audioThread = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(4), runnable -> {
+        Thread thread = new Thread(runnable, "sound");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    private volatile boolean enabled = true;
+
+    public SoundService() {
+        // Decoding and opening lines can take a while, so it happens on the audio thread too
+        audioThread.execute(this::load);
+    }
+
+    /**
+     * Queues {@code sound} to play. Returns immediately.
+     */
+    public void play(Sound sound) {
+        if (enabled) {
+            audioThread.execute(() -> start(sound));
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void close() {
+        enabled = false;
+        audioThread.execute(() -> {
+            for (Clip[] clips : pools.values()) {
+                for (Clip clip : clips) {
+                    clip.close();
+                }
+            }
+        });
+        audioThread.shutdown();
+    }
+
+    private void load() {
+        Audio click = decode(Sound.CLICK.resource);
+        if (click == null) {
+            Log.warn("Couldn't load " + Sound.CLICK.resource + ", sounds are disabled");
+            enabled = false;
+            return;
+        }
+        try {
+            for (Sound sound : Sound.values()) {
+                Audio audio = decode(sound.resource);
+                if (audio == null) {
+                    audio = repitch(click, sound.pitch);
+                }
+                Clip[] clips = new Clip[CLIPS_PER_SOUND];
+                for (int i = 0; i < clips.length; i++) {
+                    clips[i] = AudioSystem.getClip();
+                    clips[i].open(audio.format(), audio.data(), 0, audio.data().length);
+                }
+                pools.put(sound, clips);
+            }
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            Log.warn("No audio line available, sounds are disabled: " + e.getMessage());
+            enabled = false;
+        }
+    }
+
+    private void start(Sound sound) {
+        Clip[] clips = pools.get(sound);
+        if (clips == null) {
+            return;
+        }
+        for (Clip clip : clips) {
+            if (!clip.isRunning()) {
+                clip.setFramePosition(0);
+                clip.start();
+                return;
+            }
+        }
+    }
+
+    private static Audio decode(String resource) {
+        URL url = SoundService.class.getClassLoader().getResource(resource);
+        if (url == null) {
+            return null;
+        }
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(url)) {
+            // Convert compressed or unusual formats to plain PCM once, so every clip can open it directly
+            AudioFormat source = in.getFormat();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, source.getSampleRate(), 16,
+                    source.getChannels(), source.getChannels() * 2, source.getSampleRate(), false);
+            try (InputStream converted = source.matches(pcm) ? in : AudioSystem.getAudioInputStream(pcm, in)) {
+                return new Audio(pcm, converted.readAllBytes());
+            }
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            Log.warn("Couldn't decode " + resource + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Same samples at another playback rate: higher rates sound higher and shorter
+    private static Audio repitch(Audio audio, float pitch) {
+        AudioFormat f = audio.format();
+        AudioFormat format = new AudioFormat(f.getEncoding(), f.getSampleRate() * pitch, f.getSampleSizeInBits(),
+                f.getChannels(), f.getFrameSize(), f.getFrameRate() * pitch, f.isBigEndian());
+        return new Audio(format, audio.data());
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist hash, safe to share between search threads
+ * without locks.
+ * <p>
+ * Each entry is two longs: the packed data and the key XOR-ed with that data. Threads read and write
+ * the two halves without synchronisation; if a racing write tears an entry, the XOR no longer matches
+ * the probed key and the entry is treated as a miss. Entries live in buckets of four, and a store
+ * replaces the shallowest entry left over from an older search first, so deep results survive.
+ */
+public final class TranspositionTable {
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    public static final long MISS = 0L;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] table;
+    private final long bucketMask;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(BUCKET_SIZE, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        long buckets = Long.highestOneBit(entries / BUCKET_SIZE);
+        if (buckets * BUCKET_SIZE * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Transposition table too large: " + megabytes + " MB");
+        }
+        table = new long[(int) (buckets * BUCKET_SIZE * 2)];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Looks up {@code key}.
+     *
+     * @return the packed entry (decode with {@link #move}, {@link #score}, {@link #depth} and
+     * {@link #bound}), or {@link #MISS}
+     */
+    public long probe(long key) {
+        probes.increment();
+        int base = bucket(key);
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != MISS) {
+                hits.increment();
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        stores.increment();
+        int base = bucket(key);
+        int currentAge = age;
+        int victim = base;
+        int victimValue = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key || data == MISS) {
+                if (data != MISS && move == Moves.NONE) {
+                    move = move(data); // Keep the best move we already knew for this position
+                }
+                victim = i;
+                break;
+            }
+            // Prefer to evict stale entries, then shallow ones
+            int value = depth(data) + (age(data) == currentAge ? 256 : 0);
+            if (value < victimValue) {
+                victimValue = value;
+                victim = i;
+            }
+        }
+        long data = pack(move, score, depth, bound, currentAge);
+        table[victim] = key ^ data;
+        table[victim + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long stores() {
+        return stores.sum();
+    }
+
+    public double hitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    /**
+     * Returns how full the table is in permille, sampled over the first thousand entries and counting
+     * only entries written by the current search (the UCI {@code hashfull} convention).
+     */
+    public int hashfull() {
+        int sampled = Math.min(1000, table.length / 2);
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = table[i * 2 + 1];
+            if (data != MISS && age(data) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 2) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) entry & 0x3;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 10) & 0x3F;
+    }
+
+    // Bits 0-1 bound, 2-9 depth, 10-15 age, 16-31 score, 32-63 move; the bound is never 0, so neither is the entry
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return ((long) move << 32)
+                | ((long) (score & 0xFFFF) << 16)
+                | ((long) age << 10)
+                | ((long) Math.max(0, Math.min(depth, 0xFF)) << 2)
+                | bound;
+    }
+
+    private int bucket(long key) {
+        return (int) ((key >>> 16) & bucketMask) * BUCKET_SIZE * 2;
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Universal Chess Interface front end, so the engine can be driven by tournament managers and analysis
+ * tools over standard input and output. Uses no AWT or Swing classes.
+ * <p>
+ * Supported commands: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code setoption name Hash|Threads value n}, {@code setoption name TablebasePath value dir},
+ * {@code setoption name UseNNUE value true|false}, {@code setoption name EvalFile value file.nnue},
+ * {@code position startpos|fen ... [moves ...]},
+ * {@code go [depth n] [nodes n] [movetime ms] [wtime ms btime ms winc ms binc ms movestogo n] [infinite]},
+ * {@code stop} and {@code quit}.
+ */
+public final class Uci {
+    private static final int DEFAULT_HASH_MB = 64;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final PrintStream out;
+    private SearchEngine engine = new SearchEngine(new TranspositionTable(DEFAULT_HASH_MB));
+    private int hashMegabytes = DEFAULT_HASH_MB;
+    private EndgameTablebase tablebase;
+    private boolean useNnue;
+    private NnueNetwork network = NnueNetwork.fromEvaluation();
+    private Position position = Position.startPosition();
+
+    private Thread searchThread;
+    private volatile boolean stopRequested;
+
+    public Uci(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        new Uci(out).run(System.in);
+    }
+
+    /**
+     * Reads and answers commands until {@code quit} or the end of the input.
+     */
+    public void run(InputStream input) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (!handle(line.trim())) {
+                break;
+            }
+        }
+        stopSearch();
+        engine.close();
+    }
+
+    /**
+     * Handles one command line.
+     *
+     * @return false when the command was {@code quit}
+     */
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name Chess App");
+                send("id author grantrisk");
+                send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name TablebasePath type string default <empty>");
+                send("option name UseNNUE type check default false");
+                send("option name EvalFile type string default <empty>");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "ucinewgame" -> {
+                stopSearch();
+                engine.table().clear();
+            }
+            case "setoption" -> setOption(tokens);
+            case "position" -> {
+                stopSearch();
+                setPosition(tokens);
+            }
+            case "go" -> go(tokens);
+            case "stop" -> stopSearch();
+            case "quit" -> {
+                return false;
+            }
+            case "" -> {
+            }
+            default -> send("info string Unknown command: " + line);
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        String name = null;
+        String value = null;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("name")) {
+                name = tokens[i + 1];
+            } else if (tokens[i].equals("value")) {
+                value = tokens[i + 1];
+            }
+        }
+        if (name == null || value == null) {
+            send("info string Expected setoption name <id> value <x>");
+            return;
+        }
+        stopSearch();
+        if (name.equalsIgnoreCase("TablebasePath")) {
+            setTablebase(value);
+            return;
+        }
+        if (name.equalsIgnoreCase("UseNNUE")) {
+            useNnue = Boolean.parseBoolean(value);
+            engine.setNetwork(useNnue ? network : null);
+            return;
+        }
+        if (name.equalsIgnoreCase("EvalFile")) {
+            setNetwork(value);
+            return;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (name.equalsIgnoreCase("Hash")) {
+                hashMegabytes = Math.max(1, Math.min(number, MAX_HASH_MB));
+                // The table size is fixed at construction, so swap in a new engine with the same settings
+                int threads = engine.threads();
+                engine.close();
+                engine = new SearchEngine(new TranspositionTable(hashMegabytes));
+                engine.setThreads(threads);
+                engine.setTablebase(tablebase);
+                engine.setNetwork(useNnue ? network : null);
+            } else if (name.equalsIgnoreCase("Threads")) {
+                engine.setThreads(Math.max(1, Math.min(number, MAX_THREADS)));
+            } else {
+                send("info string Unknown option: " + name);
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string Bad value for " + name + ": " + value);
+        }
+    }
+
+    // The tables must already have been built there with EndgameTablebase --build
+    private void setTablebase(String directory) {
+        if (directory.equals("<empty>")) {
+            tablebase = null;
+        } else {
+            try {
+                tablebase = EndgameTablebase.open(Path.of(directory));
+            } catch (IOException | InvalidPathException e) {
+                send("info string Couldn't open tablebase " + directory + ": " + e.getMessage());
+                return;
+            }
+        }
+        engine.setTablebase(tablebase);
+    }
+
+    // <empty> goes back to the built-in network, which reproduces the piece-square tables
+    private void setNetwork(String file) {
+        try {
+            network = file.equals("<empty>") ? NnueNetwork.fromEvaluation() : NnueNetwork.load(Path.of(file));
+        } catch (IOException | InvalidPathException e) {
+            send("info string Couldn't load network " + file + ": " + e.getMessage());
+            return;
+        }
+        engine.setNetwork(useNnue ? network : null);
+    }
+
+    private void setPosition(String[] tokens) {
+        int movesAt = tokens.length;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                movesAt = i;
+                break;
+            }
+        }
+        Position next;
+        try {
+            if (tokens.length > 1 && tokens[1].equals("startpos")) {
+                next = Position.startPosition();
+            } else if (tokens.length > 2 && tokens[1].equals("fen")) {
+                next = Position.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, movesAt)));
+            } else {
+                send("info string Expected position startpos|fen <fen> [moves ...]");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string Invalid FEN: " + e.getMessage());
+            return;
+        }
+        MoveList legal = new MoveList();
+        for (int i = movesAt + 1; i < tokens.length; i++) {
+            MoveGenerator.generateLegal(next, legal);
+            int move = parseMove(tokens[i], legal);
+            if (move == Moves.NONE) {
+                send("info string Illegal move " + tokens[i] + ", position left at the move before");
+                break;
+            }
+            next.makeMove(move);
+        }
+        position = next;
+    }
+
+    private void go(String[] tokens) {
+        stopSearch();
+        int depth = 0;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] time = new long[2];
+        long[] increment = new long[2];
+        int movesToGo = 0;
+        boolean infinite = false;
+        try {
+            // Values are numbers, so they never match a keyword and need no skipping
+            for (int i = 1; i < tokens.length; i++) {
+                String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+                switch (tokens[i]) {
+                    case "depth" -> depth = Integer.parseInt(value);
+                    case "nodes" -> nodes = Long.parseLong(value);
+                    case "movetime" -> moveTime = Long.parseLong(value);
+                    case "wtime" -> time[Position.WHITE] = Long.parseLong(value);
+                    case "btime" -> time[Position.BLACK] = Long.parseLong(value);
+                    case "winc" -> increment[Position.WHITE] = Long.parseLong(value);
+                    case "binc" -> increment[Position.BLACK] = Long.parseLong(value);
+                    case "movestogo" -> movesToGo = Integer.parseInt(value);
+                    case "infinite" -> infinite = true;
+                    default -> {
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string Bad go parameter: " + e.getMessage());
+            return;
+        }
+        int side = position.sideToMove();
+        Limits limits;
+        if (infinite) {
+            limits = Limits.infinite();
+        } else if (moveTime == 0 && time[side] > 0) {
+            limits = Limits.fromClock(time[side], increment[side], movesToGo);
+        } else {
+            limits = new Limits(depth, nodes, moveTime);
+        }
+
+        Position root = position.copy();
+        SearchEngine searching = engine;
+        boolean waitForStop = infinite;
+        stopRequested = false;
+        searching.setListener(this::sendInfo);
+        searchThread = new Thread(() -> {
+            SearchResult result = searching.bestMove(root, limits);
+            // In infinite mode the best move may only be sent once the GUI says stop
+            synchronized (this) {
+                while (waitForStop && !stopRequested) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            send("bestmove " + (result.bestMove() == Moves.NONE ? "0000" : Moves.toUci(result.bestMove())));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    // Blocks until any running search has sent its bestmove, so later commands see a quiet engine
+    private void stopSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        synchronized (this) {
+            stopRequested = true;
+            notifyAll();
+        }
+        try {
+            // The search may not have started yet, in which case a single stop() would be forgotten
+            while (searchThread.isAlive()) {
+                engine.stop();
+                searchThread.join(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private void sendInfo(SearchResult result) {
+        String score;
+        if (result.isMate()) {
+            int plies = SearchEngine.MATE - Math.abs(result.score());
+            score = "mate " + (result.score() > 0 ? (plies + 1) / 2 : -(plies + 1) / 2);
+        } else {
+            score = "cp " + result.score();
+        }
+        send("info depth " + result.depth() + " score " + score + " nodes " + result.nodes()
+                + " nps " + result.nodesPerSecond() + " time " + result.elapsedMillis()
+                + " hashfull " + engine.table().hashfull() + " pv " + result.principalVariationText());
+    }
+
+    static int parseMove(String text, MoveList legal) {
+        for (int i = 0; i < legal.size(); i++) {
+            if (Moves.toUci(legal.get(i)).equals(text)) {
+                return legal.get(i);
+            }
+        }
+        return Moves.NONE;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+}
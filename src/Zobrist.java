@@ -0,0 +1,64 @@
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's hash is the XOR of the keys for every piece on
+ * its square, the castling rights, the en passant file and the side to move, so a move updates it by
+ * XOR-ing out what changed and XOR-ing in the new state. The keys come from a fixed seed, so hashes
+ * are stable across runs.
+ */
+public final class Zobrist {
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = seed = next(seed);
+            }
+        }
+        // Each right gets its own key, and a combination of rights is the XOR of its parts
+        long[] rightKeys = new long[4];
+        for (int i = 0; i < 4; i++) {
+            rightKeys[i] = seed = next(seed);
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            for (int i = 0; i < 4; i++) {
+                if ((rights & (1 << i)) != 0) {
+                    CASTLING[rights] ^= rightKeys[i];
+                }
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = seed = next(seed);
+        }
+        BLACK_TO_MOVE = next(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int code, int square) {
+        return PIECE_SQUARE[code][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int square) {
+        return square == Position.NO_SQUARE ? 0L : EN_PASSANT_FILE[square & 7];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    // splitmix64
+    private static long next(long state) {
+        long z = state + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
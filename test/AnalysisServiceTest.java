@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisServiceTest {
+    @Test
+    void equivalentFensShareAnEntry() {
+        AnalysisService service = new AnalysisService(100);
+        AnalysisService.Analysis first = service.analyze("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        AnalysisService.Analysis second = service.analyze("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b qkQK - 7 30");
+        assertSame(first, second);
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq -", first.key());
+        assertEquals(1, service.cache().hits());
+        assertEquals(1, service.cache().misses());
+    }
+
+    @Test
+    void keepsCapturableEnPassantAndTheFiftyMoveRule() {
+        assertEquals("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3",
+                AnalysisService.key(Position.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3")));
+        AnalysisService service = new AnalysisService(100);
+        AnalysisService.Analysis drawn = service.analyze("4k3/8/8/8/8/8/8/3QK3 w - - 100 80");
+        assertEquals(GameStateTracker.Status.FIFTY_MOVE_RULE, drawn.status());
+        assertEquals(GameStateTracker.Status.ONGOING, service.analyze("4k3/8/8/8/8/8/8/3QK3 w - - 99 80").status());
+    }
+
+    @Test
+    void reportsCheckMateAndStalemate() {
+        AnalysisService service = new AnalysisService(100);
+        AnalysisService.Analysis mate = service.analyze("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        assertTrue(mate.inCheck());
+        assertEquals(GameStateTracker.Status.CHECKMATE, mate.status());
+        assertEquals(0, mate.legalMoves().length);
+
+        AnalysisService.Analysis stalemate = service.analyze("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertFalse(stalemate.inCheck());
+        assertEquals(GameStateTracker.Status.STALEMATE, stalemate.status());
+
+        AnalysisService.Analysis start = service.analyze(Perft.START_FEN);
+        assertEquals(20, start.legalMoves().length);
+        assertTrue(start.legalMovesUci().contains("g1f3"));
+    }
+
+    @Test
+    void invalidPositionsAreNeverCached() {
+        AnalysisService service = new AnalysisService(100);
+        assertThrows(IllegalArgumentException.class, () -> service.analyze("8/8/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> service.analyze("4k3/8/8/8/8/8/8/4K3 w K - 0 1"));
+
+        List<AnalysisService.Analysis> results = service.analyzeAll(Arrays.asList(
+                Perft.START_FEN, "8/8/8/8/8/8/8/8 w - - 0 1", "4k3/8/8/8/8/3P4/8/4K3 w - e4 0 1", "garbage"));
+        assertNotNull(results.get(0));
+        assertNull(results.get(1));
+        assertNull(results.get(2));
+        assertNull(results.get(3));
+        assertEquals(1, service.cache().size());
+    }
+}
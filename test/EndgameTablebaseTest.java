@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndgameTablebaseTest {
+    @TempDir
+    static Path directory;
+    private static EndgameTablebase tablebase;
+
+    @BeforeAll
+    static void build() throws IOException {
+        tablebase = EndgameTablebase.build(directory);
+    }
+
+    @Test
+    void knownPositions() {
+        assertProbe("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1", EndgameTablebase.Wdl.WIN, 1);
+        assertProbe("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1", EndgameTablebase.Wdl.LOSS, 0);
+        assertProbe("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1", EndgameTablebase.Wdl.DRAW, 0);
+        assertProbe("7k/6Q1/8/8/8/8/8/K7 b - - 0 1", EndgameTablebase.Wdl.DRAW, 0);
+        assertProbe("7k/8/8/8/8/8/7P/7K w - - 0 1", EndgameTablebase.Wdl.DRAW, 0);
+        assertProbe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1", EndgameTablebase.Wdl.WIN, -1);
+        assertProbe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1", EndgameTablebase.Wdl.LOSS, -1);
+        // Black's pawn reads the same table with the board mirrored
+        assertProbe("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1", EndgameTablebase.Wdl.WIN, -1);
+        assertProbe("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1", EndgameTablebase.Wdl.DRAW, 0);
+        assertProbe("4k3/8/8/8/8/8/8/4K3 w - - 0 1", EndgameTablebase.Wdl.DRAW, 0);
+    }
+
+    @Test
+    void longestMatesAreTheKnownOnes() {
+        assertEquals(19, longestWin(Position.QUEEN)); // Mate in 10 moves
+        assertEquals(31, longestWin(Position.ROOK)); // Mate in 16 moves
+    }
+
+    @Test
+    void bestMovesMateInTheProbedNumberOfPlies() {
+        for (String fen : new String[]{"8/8/8/8/4k3/8/8/R3K3 w - - 0 1", "8/8/3k4/8/8/8/8/Q3K3 w - - 0 1",
+                "4k3/8/4K3/4P3/8/8/8/8 w - - 0 1", "8/8/8/3k4/8/8/1r6/4K3 b - - 0 1"}) {
+            Position position = Position.fromFen(fen);
+            EndgameTablebase.Probe start = tablebase.probe(position);
+            assertEquals(EndgameTablebase.Wdl.WIN, start.wdl(), fen);
+            MoveList legal = new MoveList();
+            for (int ply = 0; ; ply++) {
+                MoveGenerator.generateLegal(position, legal);
+                if (legal.isEmpty()) {
+                    assertTrue(position.isInCheck(position.sideToMove()), fen);
+                    assertEquals(start.pliesToMate(), ply, fen);
+                    break;
+                }
+                assertTrue(ply < start.pliesToMate(), fen);
+                position.makeMove(tablebase.bestMove(position));
+            }
+        }
+    }
+
+    @Test
+    void coversOnlyThreePiecesWithoutCastling() {
+        assertNull(tablebase.probe(Position.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")));
+        assertNull(tablebase.probe(Position.fromFen("4k3/8/8/8/8/8/8/RR2K3 w - - 0 1")));
+        assertEquals(Moves.NONE, tablebase.bestMove(Position.startPosition()));
+    }
+
+    @Test
+    void openingNeverBuilds() throws IOException {
+        Path empty = Files.createDirectory(directory.resolve("empty"));
+        assertThrows(IOException.class, () -> EndgameTablebase.open(empty));
+        assertThrows(IOException.class, () -> EndgameTablebase.open(directory.resolve("absent")));
+        try (var files = Files.list(empty)) {
+            assertEquals(0, files.count());
+        }
+        assertFalse(Files.exists(directory.resolve("absent")));
+    }
+
+    @Test
+    void damagedTablesAreRebuilt() throws IOException {
+        Path copy = Files.createDirectory(directory.resolve("copy"));
+        for (String name : new String[]{"KQvK.dtm", "KRvK.dtm", "KPvK.dtm"}) {
+            Files.copy(directory.resolve(name), copy.resolve(name));
+        }
+        byte[] damaged = Files.readAllBytes(copy.resolve("KRvK.dtm"));
+        Files.write(copy.resolve("KRvK.dtm"), Arrays.copyOf(damaged, damaged.length / 2));
+        assertThrows(IOException.class, () -> EndgameTablebase.open(copy));
+        EndgameTablebase rebuilt = EndgameTablebase.build(copy);
+        assertEquals(damaged.length, Files.size(copy.resolve("KRvK.dtm")));
+        EndgameTablebase reopened = EndgameTablebase.open(copy);
+        for (String fen : new String[]{"8/8/8/8/4k3/8/8/R3K3 w - - 0 1", "8/8/8/3k4/8/8/1r6/4K3 b - - 0 1"}) {
+            assertEquals(tablebase.probe(Position.fromFen(fen)), rebuilt.probe(Position.fromFen(fen)), fen);
+            assertEquals(tablebase.probe(Position.fromFen(fen)), reopened.probe(Position.fromFen(fen)), fen);
+        }
+    }
+
+    // A plies count of -1 accepts any distance
+    private static void assertProbe(String fen, EndgameTablebase.Wdl wdl, int plies) {
+        EndgameTablebase.Probe probe = tablebase.probe(Position.fromFen(fen));
+        assertNotNull(probe, fen);
+        assertEquals(wdl, probe.wdl(), fen);
+        if (plies >= 0) {
+            assertEquals(plies, probe.pliesToMate(), fen);
+        }
+    }
+
+    // White king, black king and a white piece on every square they can legally share, White to move
+    private static int longestWin(int type) {
+        int longest = 0;
+        int[] codes = new int[64];
+        for (int strongKing = 0; strongKing < 64; strongKing++) {
+            for (int weakKing = 0; weakKing < 64; weakKing++) {
+                for (int piece = 0; piece < 64; piece++) {
+                    if (strongKing == weakKing || piece == strongKing || piece == weakKing
+                            || (Attacks.king(strongKing) & (1L << weakKing)) != 0) {
+                        continue;
+                    }
+                    Arrays.fill(codes, Position.EMPTY);
+                    codes[strongKing] = Position.code(Position.WHITE, Position.KING);
+                    codes[weakKing] = Position.code(Position.BLACK, Position.KING);
+                    codes[piece] = Position.code(Position.WHITE, type);
+                    Position position = Position.of(codes, Position.WHITE);
+                    if (position.isInCheck(Position.BLACK)) {
+                        continue;
+                    }
+                    EndgameTablebase.Probe probe = tablebase.probe(position);
+                    if (probe.wdl() == EndgameTablebase.Wdl.WIN) {
+                        longest = Math.max(longest, probe.pliesToMate());
+                    }
+                }
+            }
+        }
+        return longest;
+    }
+}
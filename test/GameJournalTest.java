@@ -0,0 +1,195 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversUnfinishedGamesOnly() throws IOException {
+        int[] first = randomMoves(1, 30);
+        int[] second = randomMoves(2, 12);
+        long firstId;
+        long secondId;
+        try (GameJournal journal = GameJournal.open(directory)) {
+            firstId = journal.startGame(Perft.START_FEN);
+            secondId = journal.startGame(Perft.START_FEN);
+            for (int move : first) {
+                journal.appendMove(firstId, move);
+            }
+            for (int move : second) {
+                journal.appendMove(secondId, move);
+            }
+            journal.endGame(secondId, "1-0");
+        }
+
+        try (GameJournal journal = GameJournal.open(directory)) {
+            List<GameJournal.JournaledGame> games = journal.inProgress();
+            assertEquals(1, games.size());
+            assertEquals(firstId, games.get(0).id());
+            assertArrayEquals(first, games.get(0).decodeMoves());
+            assertEquals(2 + first.length + second.length + 1, journal.recoveredRecords());
+            assertTrue(journal.startGame(Perft.START_FEN) > secondId, "ids are never reused");
+        }
+    }
+
+    @Test
+    void synchronisedRecordsSurviveWithoutClose() throws IOException {
+        int[] moves = randomMoves(3, 20);
+        GameJournal crashed = GameJournal.open(directory);
+        long id = crashed.startGame(Perft.START_FEN);
+        for (int move : moves) {
+            crashed.awaitDurable(crashed.appendMove(id, move));
+        }
+        // Never closed, as if the process had died
+
+        try (GameJournal journal = GameJournal.open(directory)) {
+            assertArrayEquals(moves, journal.inProgress().get(0).decodeMoves());
+        }
+    }
+
+    @Test
+    void cutsOffTornTail() throws IOException {
+        int[] moves = randomMoves(4, 10);
+        journalOneGame(moves);
+        Path segment = onlyFile("journal-");
+        long size = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 11, 2, 0, 0}, StandardOpenOption.APPEND);
+
+        try (GameJournal journal = GameJournal.open(directory)) {
+            assertArrayEquals(moves, journal.inProgress().get(0).decodeMoves());
+        }
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void dropsLastRecordWithBadChecksum() throws IOException {
+        int[] moves = randomMoves(5, 10);
+        journalOneGame(moves);
+        Path segment = onlyFile("journal-");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), channel.size() - 1);
+        }
+
+        try (GameJournal journal = GameJournal.open(directory)) {
+            int[] restored = journal.inProgress().get(0).decodeMoves();
+            assertArrayEquals(Arrays.copyOf(moves, moves.length - 1), restored);
+            // Appending after the cut continues the game
+            journal.appendMove(journal.inProgress().get(0).id(), moves[moves.length - 1]);
+        }
+        try (GameJournal journal = GameJournal.open(directory)) {
+            assertArrayEquals(moves, journal.inProgress().get(0).decodeMoves());
+        }
+    }
+
+    @Test
+    void damageBeforeTheLastSegmentIsAnError() throws IOException {
+        try (GameJournal journal = GameJournal.open(directory, 4096)) {
+            playGames(journal, 40);
+        }
+        List<Path> segments = files("journal-");
+        assertTrue(segments.size() >= 1);
+        // A later segment needs an earlier one to be whole; pretend the earlier one was kept and damaged
+        Path earlier = directory.resolve("journal-00000000.log");
+        Files.write(earlier, ByteBuffer.allocate(GameJournal.SEGMENT_HEADER_SIZE + 3)
+                .putInt(GameJournal.SEGMENT_MAGIC).putLong(0).put(new byte[]{0, 0, 1}).array());
+        files("snapshot-").forEach(path -> path.toFile().delete());
+        assertThrows(IOException.class, () -> GameJournal.open(directory, 4096));
+    }
+
+    @Test
+    void snapshotsBoundRecovery() throws IOException {
+        List<GameJournal.JournaledGame> before;
+        long appended;
+        try (GameJournal journal = GameJournal.open(directory, 4096)) {
+            appended = playGames(journal, 200);
+            before = journal.inProgress();
+        }
+        assertEquals(1, files("journal-").size(), "older segments are deleted");
+        assertEquals(1, files("snapshot-").size());
+
+        try (GameJournal journal = GameJournal.open(directory, 4096)) {
+            assertTrue(journal.recoveredRecords() < appended / 4, "only the last segment is replayed");
+            List<GameJournal.JournaledGame> after = journal.inProgress();
+            assertEquals(before.size(), after.size());
+            for (int i = 0; i < before.size(); i++) {
+                assertEquals(before.get(i).id(), after.get(i).id());
+                assertEquals(before.get(i).startFen(), after.get(i).startFen());
+                assertArrayEquals(before.get(i).moves(), after.get(i).moves());
+            }
+        }
+    }
+
+    @Test
+    void rejectsMovesForUnknownGames() throws IOException {
+        try (GameJournal journal = GameJournal.open(directory)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.appendMove(42, randomMoves(6, 1)[0]));
+            assertThrows(IllegalArgumentException.class, () -> journal.endGame(42, "*"));
+        }
+    }
+
+    // Plays games of 10 moves each, ending every third one, and returns the number of records appended
+    private static long playGames(GameJournal journal, int count) throws IOException {
+        long records = 0;
+        for (int i = 0; i < count; i++) {
+            long id = journal.startGame(Perft.START_FEN);
+            records++;
+            for (int move : randomMoves(i, 10)) {
+                journal.appendMove(id, move);
+                records++;
+            }
+            if (i % 3 == 0) {
+                journal.endGame(id, "1/2-1/2");
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void journalOneGame(int[] moves) throws IOException {
+        try (GameJournal journal = GameJournal.open(directory)) {
+            long id = journal.startGame(Perft.START_FEN);
+            for (int move : moves) {
+                journal.appendMove(id, move);
+            }
+        }
+    }
+
+    private Path onlyFile(String prefix) throws IOException {
+        List<Path> files = files(prefix);
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    static int[] randomMoves(long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Position position = Position.startPosition();
+        MoveList legal = new MoveList();
+        int[] moves = new int[count];
+        for (int i = 0; i < count; i++) {
+            MoveGenerator.generateLegal(position, legal);
+            moves[i] = legal.get(random.nextInt(legal.size()));
+            position.makeMove(moves[i]);
+        }
+        return moves;
+    }
+}
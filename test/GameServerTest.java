@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+    private static GameServer server;
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() throws IOException {
+        server = GameServer.start(0, 2);
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    @Test
+    void playsMoves() throws Exception {
+        String id = createGame("");
+        HttpResponse<String> response = post("/games/" + id + "/moves", "e2e4");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"fen\":\"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1\""));
+        assertTrue(response.body().contains("\"moves\":[\"e2e4\"]"));
+        assertEquals(200, send("GET", "/games/" + id, "").statusCode());
+        assertEquals(204, send("DELETE", "/games/" + id, "").statusCode());
+        assertEquals(404, send("GET", "/games/" + id, "").statusCode());
+    }
+
+    @Test
+    void rejectsPositionsThatDontValidate() throws Exception {
+        assertEquals(400, post("/games", "4k3/p7/8/8/8/8/8/4K3 w K - 0 1").statusCode());
+        assertEquals(400, post("/games", "8/8/8/8/8/8/8/8 w - - 0 1").statusCode());
+        assertEquals(400, post("/games", "4k3/8/8/8/8/3P4/8/4K3 w - e4 0 1").statusCode());
+        assertEquals(400, post("/games", "not a fen").statusCode());
+    }
+
+    @Test
+    void illegalMovesLeaveTheGameAsItWas() throws Exception {
+        String id = createGame("4k3/p7/8/8/8/8/8/4K2R w K - 0 1");
+        String before = send("GET", "/games/" + id, "").body();
+        assertEquals(400, post("/games/" + id + "/moves", "e1c1").statusCode());
+        assertEquals(400, post("/games/" + id + "/moves", "zz").statusCode());
+        assertEquals(before, send("GET", "/games/" + id, "").body());
+        assertEquals(200, post("/games/" + id + "/moves", "e1g1").statusCode());
+    }
+
+    @Test
+    void refusesMovesAfterTheGameIsOver() throws Exception {
+        String id = createGame("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        HttpResponse<String> game = send("GET", "/games/" + id, "");
+        assertTrue(game.body().contains("\"status\":\"CHECKMATE\""));
+        assertTrue(game.body().contains("\"result\":\"0-1\""));
+        assertEquals(409, post("/games/" + id + "/moves", "e2e4").statusCode());
+    }
+
+    @Test
+    void unknownPathsAndMethods() throws Exception {
+        assertEquals(404, send("GET", "/games/12345678", "").statusCode());
+        assertEquals(404, send("GET", "/games/abc", "").statusCode());
+        assertEquals(404, send("GET", "/nowhere", "").statusCode());
+        String id = createGame("");
+        assertEquals(405, send("PUT", "/games/" + id, "").statusCode());
+    }
+
+    @Test
+    void analysesValidPositionsOnly() throws Exception {
+        HttpResponse<String> response = post("/analysis", Perft.START_FEN + "\n8/8/8/8/8/8/8/8 w - - 0 1\n4k3/8/8/8/8/8/8/4K3 w K - 0 1");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{\"fen\":\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -\""));
+        assertTrue(response.body().endsWith(",null,null]"));
+    }
+
+    private static String createGame(String fen) throws Exception {
+        HttpResponse<String> response = post("/games", fen);
+        assertEquals(201, response.statusCode(), response.body());
+        String body = response.body();
+        return body.substring(body.indexOf(':') + 1, body.indexOf(','));
+    }
+
+    private static HttpResponse<String> post(String path, String body) throws Exception {
+        return send("POST", path, body);
+    }
+
+    private static HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
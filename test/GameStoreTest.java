@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void gamesReadBackByNumber() throws IOException {
+        Path path = directory.resolve("test.games");
+        Position custom = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int games = 3000; // More than the writer's initial index capacity
+        try (GameStoreWriter writer = GameStoreWriter.create(path)) {
+            for (int i = 0; i < games; i++) {
+                Map<String, String> tags = new LinkedHashMap<>();
+                tags.put("Event", "Game " + i);
+                tags.put("White", "Ünïcode");
+                Position start = i % 2 == 0 ? Position.startPosition() : custom;
+                writer.append(tags, start, moves(start, i), GameStore.RESULTS.get(i % 4));
+            }
+        }
+
+        try (GameStore store = GameStore.open(path)) {
+            assertEquals(games, store.size());
+            for (int i : new int[]{0, 1, 1023, 1024, 2999}) {
+                GameStore.StoredGame game = store.get(i);
+                Position start = i % 2 == 0 ? Position.startPosition() : custom;
+                assertEquals("Game " + i, game.tags().get("Event"));
+                assertEquals("Ünïcode", game.tags().get("White"));
+                assertEquals(GameStore.RESULTS.get(i % 4), game.result());
+                assertEquals(start.toFen(), game.startPosition().toFen());
+                assertArrayEquals(moves(start, i), game.decodeMoves());
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(games));
+        }
+    }
+
+    private static int[] moves(Position start, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Position position = start.copy();
+        MoveList legal = new MoveList();
+        int[] moves = new int[random.nextInt(80)];
+        int count = 0;
+        for (; count < moves.length; count++) {
+            MoveGenerator.generateLegal(position, legal);
+            if (legal.isEmpty()) {
+                break;
+            }
+            moves[count] = legal.get(random.nextInt(legal.size()));
+            position.makeMove(moves[count]);
+        }
+        return Arrays.copyOf(moves, count);
+    }
+}
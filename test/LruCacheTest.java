@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+    @Test
+    void evictsLeastRecentlyUsed() {
+        // Small enough for a single segment, so eviction is exactly LRU
+        LruCache<String, String> cache = new LruCache<>(3, String::length);
+        cache.put("a", "1");
+        cache.put("b", "22");
+        cache.put("c", "333");
+        assertEquals("1", cache.get("a")); // "b" is now the eldest
+        cache.put("d", "4444");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("333", cache.get("c"));
+        assertEquals("4444", cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LruCache<Integer, Integer> cache = new LruCache<>(10, value -> 1);
+        int[] computed = {0};
+        for (int round = 0; round < 3; round++) {
+            for (int key = 0; key < 5; key++) {
+                assertEquals(key * key, cache.computeIfAbsent(key, k -> {
+                    computed[0]++;
+                    return k * k;
+                }));
+            }
+        }
+        assertEquals(5, computed[0]);
+        assertEquals(5, cache.misses());
+        assertEquals(10, cache.hits());
+        assertEquals(10.0 / 15, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    void tracksWeightThroughReplacementEvictionAndClear() {
+        LruCache<String, String> cache = new LruCache<>(2, String::length);
+        cache.put("a", "xxx");
+        cache.put("a", "xxxxx"); // Replaces, so only the new value counts
+        assertEquals(5, cache.estimatedBytes());
+        cache.put("b", "yy");
+        cache.put("c", "z"); // Evicts "a"
+        assertEquals(3, cache.estimatedBytes());
+        cache.clear();
+        assertEquals(0, cache.estimatedBytes());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void segmentsAddUpToTheCapacity() {
+        LruCache<Integer, Integer> cache = new LruCache<>(10_007, value -> 4);
+        for (int key = 0; key < 50_000; key++) {
+            cache.put(key, key);
+        }
+        assertEquals(10_007, cache.capacity());
+        assertEquals(10_007, cache.size());
+        assertEquals(50_000 - 10_007, cache.evictions());
+        assertEquals(4L * 10_007, cache.estimatedBytes());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(0, String::length));
+    }
+}
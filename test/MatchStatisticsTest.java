@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchStatisticsTest {
+    @Test
+    void boundsFollowFromErrorRates() {
+        MatchStatistics stats = new MatchStatistics(0, 5, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), stats.lowerBound(), 1e-12);
+        assertEquals(Math.log(0.95 / 0.05), stats.upperBound(), 1e-12);
+        assertEquals(0, stats.llr());
+        assertNull(stats.sprtResult());
+    }
+
+    @Test
+    void eloFromScore() {
+        MatchStatistics stats = new MatchStatistics(0, 5, 0.05, 0.05);
+        add(stats, 60, 0, 40);
+        assertEquals(100, stats.games());
+        assertEquals(0.6, stats.score(), 1e-12);
+        assertEquals(-400 * Math.log10(1 / 0.6 - 1), stats.elo(), 1e-9);
+
+        MatchStatistics even = new MatchStatistics(0, 5, 0.05, 0.05);
+        add(even, 30, 40, 30);
+        assertEquals(0, even.elo(), 1e-9);
+        assertTrue(even.eloError() > 0 && even.eloError() < 100);
+    }
+
+    @Test
+    void llrMatchesTheNormalApproximation() {
+        MatchStatistics stats = new MatchStatistics(0, 10, 0.05, 0.05);
+        add(stats, 120, 260, 100);
+        double n = 480;
+        double score = (120 + 0.5 * 260) / n;
+        double variance = (120 * Math.pow(1 - score, 2) + 260 * Math.pow(0.5 - score, 2) + 100 * score * score) / n;
+        double s0 = 0.5;
+        double s1 = 1 / (1 + Math.pow(10, -10 / 400.0));
+        assertEquals(n * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance), stats.llr(), 1e-9);
+    }
+
+    @Test
+    void acceptsH1ForAClearlyStrongerPlayerAndH0ForAnEqualOne() {
+        MatchStatistics stronger = new MatchStatistics(0, 5, 0.05, 0.05);
+        add(stronger, 600, 300, 300);
+        assertEquals("H1", stronger.sprtResult());
+
+        MatchStatistics equal = new MatchStatistics(0, 5, 0.05, 0.05);
+        add(equal, 6000, 8000, 6000);
+        assertEquals("H0", equal.sprtResult());
+    }
+
+    private static void add(MatchStatistics stats, int wins, int draws, int losses) {
+        for (int i = 0; i < wins; i++) {
+            stats.add(1);
+        }
+        for (int i = 0; i < draws; i++) {
+            stats.add(0.5);
+        }
+        for (int i = 0; i < losses; i++) {
+            stats.add(0);
+        }
+    }
+}
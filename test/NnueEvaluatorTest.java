@@ -0,0 +1,153 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NnueEvaluatorTest {
+    private static final NnueNetwork NETWORK = NnueNetwork.fromEvaluation();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void builtInNetworkMatchesTheTablesInTheEndgame() {
+        for (String fen : new String[]{"8/5k2/8/8/8/3K4/8/7R w - - 0 1", "8/5k2/8/8/8/3K4/8/7R b - - 0 1",
+                "8/8/4k3/8/2p5/8/1P3K2/8 w - - 0 1", "6k1/5ppp/8/8/8/8/5PPP/3R2K1 b - - 0 1"}) {
+            Position position = Position.fromFen(fen);
+            NnueEvaluator evaluator = new NnueEvaluator(NETWORK, 0);
+            evaluator.refresh(position);
+            assertEquals(Evaluation.evaluate(position), evaluator.evaluate(position), fen);
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchTheTablesThroughWholeGames() {
+        String[] starts = {Perft.START_FEN, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "r3k3/1P6/8/8/8/8/6p1/4K2R w Kq - 0 1"};
+        SplittableRandom random = new SplittableRandom(21);
+        int maxPly = 200;
+        NnueEvaluator incremental = new NnueEvaluator(NETWORK, maxPly);
+        NnueEvaluator fresh = new NnueEvaluator(NETWORK, 0);
+        MoveList legal = new MoveList();
+        for (int game = 0; game < 40; game++) {
+            Position position = Position.fromFen(starts[game % starts.length]);
+            incremental.refresh(position);
+            for (int ply = 0; ply < maxPly; ply++) {
+                MoveGenerator.generateLegal(position, legal);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                incremental.makeMove(position, legal.get(random.nextInt(legal.size())));
+                fresh.refresh(position);
+                int expected = Evaluation.evaluate(position);
+                assertEquals(expected, fresh.evaluate(position), position.toFen());
+                assertEquals(expected, incremental.evaluate(position), position.toFen());
+            }
+        }
+    }
+
+    @Test
+    void searchScoresTheSameWithTheBuiltInNetwork() {
+        for (String fen : new String[]{"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/5k2/8/8/8/3K4/8/7R w - - 0 1"}) {
+            Position position = Position.fromFen(fen);
+            SearchEngine tables = new SearchEngine(new TranspositionTable(1));
+            SearchEngine nnue = new SearchEngine(new TranspositionTable(1));
+            nnue.setNetwork(NETWORK);
+            SearchResult expected = tables.bestMove(position, Limits.depth(5));
+            SearchResult actual = nnue.bestMove(position, Limits.depth(5));
+            assertEquals(expected.score(), actual.score(), fen);
+            assertEquals(expected.nodes(), actual.nodes(), fen);
+            assertArrayEquals(expected.principalVariation(), actual.principalVariation(), fen);
+        }
+    }
+
+    @Test
+    void vectorKernelMatchesTheScalarLoops() {
+        NnueKernel vector = new NnueVectorKernel();
+        SplittableRandom random = new SplittableRandom(7);
+        // Lengths around the vector widths, and one long enough to need several flushes of the int lanes
+        for (int length : new int[]{8, 24, 40, 136, 4096}) {
+            short[] accumulators = randomShorts(random, length);
+            short[] weights = randomShorts(random, 3 * length);
+            assertEquals(NnueKernel.SCALAR.dot(accumulators, 0, weights, length, length, NnueNetwork.ACTIVATION_LIMIT),
+                    vector.dot(accumulators, 0, weights, length, length, NnueNetwork.ACTIVATION_LIMIT), "length " + length);
+
+            short[] expected = new short[length];
+            short[] actual = new short[length];
+            NnueKernel.SCALAR.move(accumulators, expected, 0, weights, 0, length, length);
+            vector.move(accumulators, actual, 0, weights, 0, length, length);
+            NnueKernel.SCALAR.add(expected, 0, weights, 2 * length, length);
+            vector.add(actual, 0, weights, 2 * length, length);
+            NnueKernel.SCALAR.subtract(expected, 0, weights, length, length);
+            vector.subtract(actual, 0, weights, length, length);
+            assertArrayEquals(expected, actual, "length " + length);
+        }
+
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        NnueEvaluator scalarEvaluator = new NnueEvaluator(NETWORK, 1, NnueKernel.SCALAR);
+        NnueEvaluator vectorEvaluator = new NnueEvaluator(NETWORK, 1, vector);
+        scalarEvaluator.refresh(position);
+        vectorEvaluator.refresh(position);
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        for (int i = 0; i < legal.size(); i++) {
+            scalarEvaluator.makeMove(position, legal.get(i));
+            int expected = scalarEvaluator.evaluate(position);
+            scalarEvaluator.unmakeMove(position);
+            vectorEvaluator.makeMove(position, legal.get(i));
+            assertEquals(expected, vectorEvaluator.evaluate(position), Moves.toUci(legal.get(i)));
+            vectorEvaluator.unmakeMove(position);
+        }
+    }
+
+    @Test
+    void largeOutputsDontWrapAround() throws IOException {
+        int hidden = 512;
+        int divisor = 1024;
+        ByteBuffer out = ByteBuffer.allocate(20 + 2 * (NnueNetwork.INPUTS * hidden + hidden + 2 * hidden) + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0x45554E4E).putInt(hidden).putInt(1).putInt(1).putInt(divisor);
+        out.position(out.position() + 2 * NnueNetwork.INPUTS * hidden);
+        for (int i = 0; i < hidden; i++) {
+            out.putShort(Short.MAX_VALUE); // Clipped to the activation limit
+        }
+        for (int i = 0; i < hidden; i++) {
+            out.putShort(Short.MAX_VALUE);
+        }
+        Path path = directory.resolve("large.nnue");
+        Files.write(path, out.array());
+
+        NnueEvaluator evaluator = new NnueEvaluator(NnueNetwork.load(path), 0);
+        Position position = Position.startPosition();
+        evaluator.refresh(position);
+        assertEquals((long) NnueNetwork.ACTIVATION_LIMIT * Short.MAX_VALUE * hidden / divisor, evaluator.evaluate(position));
+    }
+
+    @Test
+    void savedNetworksLoadBack() throws IOException {
+        Path path = directory.resolve("eval.nnue");
+        NETWORK.save(path);
+        NnueNetwork loaded = NnueNetwork.load(path);
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        NnueEvaluator evaluator = new NnueEvaluator(loaded, 0);
+        evaluator.refresh(position);
+        assertEquals(Evaluation.evaluate(position), evaluator.evaluate(position));
+        assertEquals(NETWORK.hidden(), loaded.hidden());
+    }
+
+    private static short[] randomShorts(SplittableRandom random, int length) {
+        short[] values = new short[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (short) random.nextInt(Short.MIN_VALUE, Short.MAX_VALUE + 1);
+        }
+        return values;
+    }
+}
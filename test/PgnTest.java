@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnTest {
+    @Test
+    void writtenGamesReadBack() throws IOException {
+        Position start = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = randomGame(start, 7, 60);
+        PgnGame written = PgnWriter.toGame(start, moves, "*");
+        StringWriter out = new StringWriter();
+        PgnWriter.write(written, out);
+
+        PgnGame read = read(out.toString()).get(0);
+        assertEquals(start.toFen(), read.startPosition().toFen());
+        assertEquals(written.moves(), read.moves());
+        assertArrayEquals(moves, read.decodeMoves());
+        assertEquals("*", read.result());
+    }
+
+    @Test
+    void skipsCommentsVariationsAndAnnotations() throws IOException {
+        String pgn = """
+                [Event "Test"]
+                [White "Café \\"Player\\""]
+                [Result "1-0"]
+
+                1. e4 {best by test} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 Nc6 ; to the end of the line
+                3. Bb5 a6 1-0
+
+                [Event "Second"]
+                1.d4 d5 *
+                """;
+        List<PgnGame> games = read(pgn);
+        assertEquals(2, games.size());
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), games.get(0).moves());
+        assertEquals("Café \"Player\"", games.get(0).tags().get("White"));
+        assertEquals("1-0", games.get(0).result());
+        assertEquals(List.of("d4", "d5"), games.get(1).moves());
+        assertEquals("*", games.get(1).result());
+        assertEquals(6, games.get(0).decodeMoves().length);
+    }
+
+    @Test
+    void illegalMovesAreReported() throws IOException {
+        PgnGame game = read("1. e4 e5 2. Ke3 *").get(0);
+        assertThrows(IllegalArgumentException.class, game::decodeMoves);
+    }
+
+    private static List<PgnGame> read(String pgn) throws IOException {
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))))) {
+            List<PgnGame> games = new ArrayList<>();
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                games.add(game);
+            }
+            return games;
+        }
+    }
+
+    private static int[] randomGame(Position start, long seed, int plies) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Position position = start.copy();
+        MoveList legal = new MoveList();
+        int[] moves = new int[plies];
+        int count = 0;
+        for (; count < plies; count++) {
+            MoveGenerator.generateLegal(position, legal);
+            if (legal.isEmpty()) {
+                break;
+            }
+            moves[count] = legal.get(random.nextInt(legal.size()));
+            position.makeMove(moves[count]);
+        }
+        return Arrays.copyOf(moves, count);
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyglotBookTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void publishedReferenceKeys() {
+        assertKey(0x463B96181691FC9CL);
+        assertKey(0x823C9B50FD114196L, "e2e4");
+        assertKey(0x0756B94461C50FB0L, "e2e4", "d7d5");
+        assertKey(0x662FAFB965DB29D4L, "e2e4", "d7d5", "e4e5");
+        assertKey(0x22A48B5A8E47FF78L, "e2e4", "d7d5", "e4e5", "f7f5");
+        assertKey(0x652A607CA3F242C1L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2");
+        assertKey(0x00FDD303C946BDD9L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7");
+        assertKey(0x3C8123EA7B067637L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4");
+        assertKey(0x5C3F9B829B279560L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3");
+    }
+
+    @Test
+    void builtBooksReadBack() throws IOException {
+        Path pgn = directory.resolve("games.pgn");
+        Files.writeString(pgn, """
+                [Result "1-0"]
+
+                1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O 1-0
+
+                [Result "1/2-1/2"]
+
+                1. e4 c5 1/2-1/2
+
+                [Result "0-1"]
+
+                1. d4 d5 0-1
+                """);
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(20);
+        try (PgnReader reader = PgnReader.open(pgn)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                builder.add(game);
+            }
+        }
+        Path path = directory.resolve("book.bin");
+        builder.write(path);
+
+        try (PolyglotBook book = PolyglotBook.open(path)) {
+            Position position = Position.startPosition();
+            List<PolyglotBook.BookMove> moves = book.lookup(position);
+            assertEquals(1, moves.size()); // 1. d4 only ever lost
+            assertEquals("e2e4", Moves.toUci(moves.get(0).move()));
+            assertEquals(3, moves.get(0).weight());
+
+            for (String move : new String[]{"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5"}) {
+                position.makeMove(SanTest.uci(position, move));
+            }
+            // Castling is stored as the king taking its own rook and comes back as the king's move
+            assertEquals("e1g1", Moves.toUci(book.pick(position, new Random(1))));
+            position.makeMove(SanTest.uci(position, "e1g1"));
+            assertEquals(Moves.NONE, book.pick(position, new Random(1)));
+        }
+    }
+
+    private static void assertKey(long expected, String... moves) {
+        Position position = Position.startPosition();
+        for (String move : moves) {
+            position.makeMove(SanTest.uci(position, move));
+        }
+        assertEquals(Long.toHexString(expected), Long.toHexString(PolyglotBook.key(position)), String.join(" ", moves));
+    }
+}
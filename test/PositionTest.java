@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+    @ParameterizedTest
+    @ValueSource(strings = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1",
+            "4k3/8/8/8/8/8/8/4K2R b - - 0 1",
+    })
+    void validFensRoundTrip(String fen) {
+        assertEquals(fen, Position.fromFen(fen).toFen());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "8/8/8/8/8/8/8/8 w - - 0 1",                       // No kings
+            "4k3/8/8/8/8/8/8/8 w - - 0 1",                     // No white king
+            "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",                  // Two white kings
+            "4k3/8/8/8/8/8/8/4K2P w - - 0 1",                  // Pawn on the first rank
+            "3Pk3/8/8/8/8/8/8/4K3 w - - 0 1",                  // Pawn on the eighth rank
+            "4k3/8/8/8/8/8/8/4K3 w K - 0 1",                   // Castling right without the rook
+            "4k3/p7/8/8/8/8/8/4K3 w K - 0 1",
+            "4k3/8/8/8/8/8/8/R3K2R w KQq - 0 1",               // Black rights without black rooks
+            "4k3/8/8/8/8/8/8/R4K1R w KQ - 0 1",                // King away from e1
+            "4k3/8/8/8/8/3P4/8/4K3 w - e4 0 1",                // En passant square on the wrong rank
+            "4k3/8/8/4P3/8/8/8/4K3 w - e6 0 1",                // Pawn has the wrong colour for the side to move
+            "4k3/8/8/8/8/8/8/4K3 w - e6 0 1",                  // No pawn that could have moved
+            "4k3/4p3/8/4p3/8/8/8/4K3 w - e6 0 1",              // Pawn couldn't have crossed e7
+            "4k2R/8/8/8/8/8/8/4K3 w - - 0 1",                  // Black, not to move, is in check
+            "4k3/8/8/8/8/8/8/4K3 w - - -1 1",                  // Negative clock
+            "4k3/8/8/8/8/8/8/4K3 w - - 0 0",
+            "4k3/8/8/8/8/8/8/4K3 x - - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 w X - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 w -",
+            "4k3/8/8/8/8/8/8/4K4 w - - 0 1",
+            "3k3/8/8/8/8/8/8/4K3 w - - 0 1",                   // Short rank made up by the total
+            "4k4/8/8/8/8/8/8/4K3 w - - 0 1",                   // Long rank
+            "4k3/8/8/8/8/8/8/4K3/8 w - - 0 1",                 // Ninth rank
+            "4k3/8/8/8/8/8/8/4K2 w - - 0 1",
+    })
+    void invalidPositionsAreRejected(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen(fen));
+    }
+
+    @Test
+    void everyLegalMoveCanBePlayedFromAcceptedFens() {
+        // The reviewed crashes: castling without a rook and en passant without a pawn
+        String[] fens = {
+                "4k3/p7/8/8/8/8/8/R3K2R w KQ - 0 1",
+                "4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1",
+        };
+        MoveList legal = new MoveList();
+        for (String fen : fens) {
+            Position position = Position.fromFen(fen);
+            MoveGenerator.generateLegal(position, legal);
+            for (int i = 0; i < legal.size(); i++) {
+                Position next = position.copy();
+                next.makeMove(legal.get(i));
+                next.unmakeMove();
+                assertEquals(position.toFen(), next.toFen());
+            }
+        }
+    }
+
+    @Test
+    void fenHashesLikeTheGameItCameFrom() {
+        Position played = Position.startPosition();
+        played.makeMove(SanTest.uci(played, "e2e4"));
+        Position fromFen = Position.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        assertEquals(played.hash(), fromFen.hash());
+        assertEquals(played.toFen(), fromFen.toFen());
+        assertEquals(Position.NO_SQUARE, fromFen.enPassantSquare());
+
+        // With a pawn ready to take, the square is kept by both
+        Position capturable = Position.fromFen("rnbqkbnr/ppp1pppp/8/8/3p4/8/PPPPPPPP/RNBQKBNR w KQkq - 0 3");
+        capturable.makeMove(SanTest.uci(capturable, "e2e4"));
+        Position capturableFen = Position.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+        assertEquals(Position.parseSquare("e3"), capturableFen.enPassantSquare());
+        assertEquals(capturable.hash(), capturableFen.hash());
+        assertEquals(capturableFen.computeHash(), capturableFen.hash());
+    }
+}
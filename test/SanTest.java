@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SanTest {
+    private static final String[] POSITIONS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+    };
+
+    @Test
+    void everyLegalMoveRoundTrips() {
+        MoveList legal = new MoveList();
+        MoveList replies = new MoveList();
+        for (String fen : POSITIONS) {
+            Position position = Position.fromFen(fen);
+            MoveGenerator.generateLegal(position, legal);
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                assertEquals(move, San.parse(position, San.format(position, move)), fen + " " + Moves.toUci(move));
+
+                Position next = position.copy();
+                next.makeMove(move);
+                MoveGenerator.generateLegal(next, replies);
+                for (int j = 0; j < replies.size(); j++) {
+                    int reply = replies.get(j);
+                    assertEquals(reply, San.parse(next, San.format(next, reply)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void formatsCastlingPromotionAndChecks() {
+        Position kiwipete = Position.fromFen(POSITIONS[1]);
+        assertEquals("O-O", San.format(kiwipete, uci(kiwipete, "e1g1")));
+        assertEquals("O-O-O", San.format(kiwipete, uci(kiwipete, "e1c1")));
+        assertEquals("Bxa6", San.format(kiwipete, uci(kiwipete, "e2a6")));
+
+        Position promotion = Position.fromFen("3r3k/4P3/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals("exd8=Q+", San.format(promotion, uci(promotion, "e7d8q")));
+        assertEquals("e8=N", San.format(promotion, uci(promotion, "e7e8n")));
+
+        Position mate = Position.fromFen("6k1/5ppp/8/8/8/8/8/R6K w - - 0 1");
+        assertEquals("Ra8#", San.format(mate, uci(mate, "a1a8")));
+    }
+
+    @Test
+    void disambiguatesByFileThenRank() {
+        Position files = Position.fromFen("7k/8/8/8/8/8/8/R4R1K w - - 0 1");
+        assertEquals("Rac1", San.format(files, uci(files, "a1c1")));
+        Position ranks = Position.fromFen("7k/8/8/R7/8/8/8/R6K w - - 0 1");
+        assertEquals("R1a3", San.format(ranks, uci(ranks, "a1a3")));
+    }
+
+    @Test
+    void parsesLenientInput() {
+        Position position = Position.startPosition();
+        assertEquals(uci(position, "g1f3"), San.parse(position, "Nf3+"));
+        assertEquals(uci(position, "e2e4"), San.parse(position, "e4!?"));
+        Position kiwipete = Position.fromFen(POSITIONS[1]);
+        assertEquals(uci(kiwipete, "e1g1"), San.parse(kiwipete, "0-0"));
+    }
+
+    @Test
+    void rejectsIllegalAndAmbiguousMoves() {
+        Position position = Position.startPosition();
+        assertThrows(IllegalArgumentException.class, () -> San.parse(position, "e5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(position, "Qh5"));
+        Position twoRooks = Position.fromFen("7k/8/8/8/8/8/8/R4R1K w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(twoRooks, "Rc1"));
+    }
+
+    static int uci(Position position, String uci) {
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        int move = Uci.parseMove(uci, legal);
+        assertNotEquals(Moves.NONE, move, uci);
+        return move;
+    }
+}